@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Compare REST client settings against the stub Prometheus: for each configuration, start the
+# server, run the SSE load test with range queries and print the traffic the stub saw.
+#
+#   ./mvnw package -DskipTests && (cd benchmarks && ../mvnw package)
+#   benchmarks/bench-client-tuning.sh
+#
+# Each line of CONFIGS is a set of environment variables for the server.
+set -euo pipefail
+
+root=$(cd "$(dirname "$0")/.." && pwd)
+jar=$root/benchmarks/target/benchmarks.jar
+server=$root/target/quarkus-app/quarkus-run.jar
+latency=${LATENCY:-50ms}
+concurrency=${CONCURRENCY:-8,32,128}
+duration=${DURATION:-20s}
+CONFIGS=${CONFIGS:-"PROMETHEUS_HTTP_COMPRESSION=true PROMETHEUS_HTTP_POOL_SIZE=50
+PROMETHEUS_HTTP_COMPRESSION=false PROMETHEUS_HTTP_POOL_SIZE=50
+PROMETHEUS_HTTP_COMPRESSION=true PROMETHEUS_HTTP_POOL_SIZE=8"}
+
+java -cp "$jar" com.monitoring.prometheus.benchmark.StubPrometheus --port 19090 --latency "$latency" &
+stub=$!
+trap 'kill $stub 2>/dev/null' EXIT
+sleep 1
+
+while read -r config; do
+    [ -z "$config" ] && continue
+    echo "== $config"
+    env $config PROMETHEUS_URL=http://localhost:19090 \
+        java -Dquarkus.http.port=19081 -jar "$server" > /tmp/bench-client-tuning.log 2>&1 &
+    mcp=$!
+    until curl -sf localhost:19081/q/health/ready > /dev/null; do sleep 0.5; done
+    curl -s localhost:19090/stub/stats > /dev/null
+    java -cp "$jar" com.monitoring.prometheus.benchmark.LoadTest --url http://localhost:19081 \
+        --concurrency "$concurrency" --duration "$duration" --tool queryRange \
+        --arguments '{"promql":"up + ${n}","duration":"6h","step":"30s"}'
+    echo "stub: $(curl -s localhost:19090/stub/stats)"
+    kill $mcp
+    wait $mcp 2>/dev/null || true
+done <<< "$CONFIGS"
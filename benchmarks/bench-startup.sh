@@ -0,0 +1,30 @@
+#!/usr/bin/env bash
+# Time to first tool response of a stdio session, JVM against native, with the stub Prometheus.
+#
+#   ./mvnw package -DskipTests && ./mvnw package -Pnative -DskipTests
+#   (cd benchmarks && ../mvnw package)
+#   benchmarks/bench-startup.sh
+#
+# The native run is skipped when no native executable has been built.
+set -euo pipefail
+
+root=$(cd "$(dirname "$0")/.." && pwd)
+jar=$root/benchmarks/target/benchmarks.jar
+runs=${RUNS:-10}
+stdio="-Dquarkus.mcp.server.stdio.enabled=true -Dquarkus.http.host-enabled=false"
+
+java -cp "$jar" com.monitoring.prometheus.benchmark.StubPrometheus --port 19090 --latency "${LATENCY:-10ms}" &
+stub=$!
+trap 'kill $stub 2>/dev/null' EXIT
+sleep 1
+export PROMETHEUS_URL=http://localhost:19090
+
+echo "== JVM"
+java -cp "$jar" com.monitoring.prometheus.benchmark.StartupProbe --runs "$runs" \
+    --command "java $stdio -jar $root/target/quarkus-app/quarkus-run.jar"
+
+native=$(ls "$root"/target/*-runner 2>/dev/null | head -1 || true)
+if [ -n "$native" ]; then
+    echo "== native"
+    java -cp "$jar" com.monitoring.prometheus.benchmark.StartupProbe --runs "$runs" --command "$native $stdio"
+fi
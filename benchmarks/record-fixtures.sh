@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Re-record the benchmark fixtures from a live Prometheus.
+#
+#   PROMETHEUS_URL=http://prometheus:9090 ./record-fixtures.sh
+#
+# Pick queries that match the shapes the benchmarks are named after on your data:
+# a few series, ~10000 series, and ~200 series over 6h at a 30s step.
+set -euo pipefail
+
+url=${PROMETHEUS_URL:-http://localhost:9090}
+out=$(dirname "$0")/src/main/resources/fixtures
+end=$(date +%s)
+start=$((end - 6 * 3600))
+
+record() {
+    local name=$1 path=$2
+    shift 2
+    curl -sfG "$url$path" "$@" | gzip -9 > "$out/$name.json.gz"
+    echo "$name: $(gzip -l "$out/$name.json.gz" | awk 'NR==2 {print $2}') bytes"
+}
+
+record query-vector-small /api/v1/query \
+    --data-urlencode "query=${SMALL_QUERY:-up}"
+record query-vector-large /api/v1/query \
+    --data-urlencode "query=${LARGE_QUERY:-container_memory_working_set_bytes}"
+record query-matrix-wide /api/v1/query_range \
+    --data-urlencode "query=${WIDE_QUERY:-sum by (pod) (rate(container_cpu_usage_seconds_total[5m]))}" \
+    --data-urlencode "start=$start" --data-urlencode "end=$end" --data-urlencode "step=30"
+record targets-large /api/v1/targets
+record rules-large /api/v1/rules
+record label-values-name /api/v1/label/__name__/values
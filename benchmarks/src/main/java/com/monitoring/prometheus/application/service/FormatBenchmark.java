@@ -0,0 +1,112 @@
+package com.monitoring.prometheus.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monitoring.prometheus.application.metadata.NameIndex;
+import com.monitoring.prometheus.benchmark.Fixtures;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.infrastructure.config.QueryConfig;
+import com.monitoring.prometheus.infrastructure.decoder.QueryResponseDecoder;
+import com.monitoring.prometheus.infrastructure.decoder.TargetFilter;
+import com.monitoring.prometheus.infrastructure.decoder.TargetSet;
+import com.monitoring.prometheus.infrastructure.decoder.TargetsDecoder;
+import com.monitoring.prometheus.infrastructure.dto.LabelsResponseDto;
+import com.monitoring.prometheus.infrastructure.dto.RulesResponseDto;
+import com.monitoring.prometheus.infrastructure.metrics.ClientMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of tool answers from decoded recorded responses, with the default
+ * budgets of the tools. Run with {@code -prof gc} for allocations per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class FormatBenchmark {
+
+    private static final int METRIC_SEARCH_LIMIT = 50;
+
+    private PrometheusService service;
+    private QueryConfig queryConfig;
+    private TargetSet targets;
+    private RulesResponseDto rules;
+    private NameIndex metricNames;
+
+    /**
+     * A decoded query response rendered in one output format.
+     */
+    @State(Scope.Benchmark)
+    public static class Query {
+
+        @Param({Fixtures.VECTOR_SMALL, Fixtures.VECTOR_LARGE, Fixtures.MATRIX_WIDE})
+        public String fixture;
+
+        @Param({"text", "csv", "json"})
+        public String format;
+
+        QueryResult result;
+
+        @Setup
+        public void decode() throws IOException {
+            QueryResponseDecoder decoder = new QueryResponseDecoder();
+            Fixtures.inject(decoder, "objectMapper", Fixtures.objectMapper());
+            result = decoder.decode(new ByteArrayInputStream(Fixtures.load(fixture)));
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Fixtures.objectMapper();
+        ClientMetrics clientMetrics = new ClientMetrics();
+        Fixtures.inject(clientMetrics, "registry", new SimpleMeterRegistry());
+        queryConfig = Fixtures.defaults(QueryConfig.class);
+        service = new PrometheusService();
+        Fixtures.inject(service, "queryConfig", queryConfig);
+        Fixtures.inject(service, "clientMetrics", clientMetrics);
+
+        TargetsDecoder targetsDecoder = new TargetsDecoder();
+        Fixtures.inject(targetsDecoder, "objectMapper", objectMapper);
+        targets = targetsDecoder.decode(new ByteArrayInputStream(Fixtures.load(Fixtures.TARGETS)), TargetFilter.ALL);
+        rules = objectMapper.readValue(Fixtures.load(Fixtures.RULES), RulesResponseDto.class);
+        metricNames = NameIndex.of(objectMapper.readValue(Fixtures.load(Fixtures.METRIC_NAMES),
+            LabelsResponseDto.class).data(), Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public String queryResult(Query query) {
+        return service.formatQueryResult(query.result, queryConfig.budget().maxSeries(),
+            queryConfig.budget().maxPoints(), query.format);
+    }
+
+    @Benchmark
+    public String targets() {
+        return service.formatTargetsResponse(targets, "any", TargetFilter.ALL);
+    }
+
+    @Benchmark
+    public String rules() {
+        return service.formatRulesResponse(rules);
+    }
+
+    @Benchmark
+    public String metricNames() {
+        return service.formatMatches("Metrics", "container_", metricNames.search("container_", METRIC_SEARCH_LIMIT));
+    }
+}
@@ -0,0 +1,50 @@
+package com.monitoring.prometheus.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code --name value} command line options of the benchmark tools.
+ */
+final class Args {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    private Args() {
+    }
+
+    static Args parse(String[] args) {
+        Args parsed = new Args();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --name value, got " + args[i]);
+            }
+            parsed.values.put(args[i].substring(2), args[++i]);
+        }
+        return parsed;
+    }
+
+    String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    Duration getDuration(String name, String defaultValue) {
+        return Fixtures.duration(get(name, defaultValue));
+    }
+
+    List<Integer> getInts(String name, String defaultValue) {
+        List<Integer> result = new ArrayList<>();
+        for (String value : get(name, defaultValue).split(",")) {
+            result.add(Integer.parseInt(value.trim()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package com.monitoring.prometheus.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.infrastructure.decoder.QueryResponseDecoder;
+import com.monitoring.prometheus.infrastructure.decoder.TargetFilter;
+import com.monitoring.prometheus.infrastructure.decoder.TargetSet;
+import com.monitoring.prometheus.infrastructure.decoder.TargetsDecoder;
+import com.monitoring.prometheus.infrastructure.dto.LabelsResponseDto;
+import com.monitoring.prometheus.infrastructure.dto.QueryResponseDto;
+import com.monitoring.prometheus.infrastructure.dto.RulesResponseDto;
+import com.monitoring.prometheus.infrastructure.dto.TargetsResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of recorded responses: Jackson into the DTO records against the streaming
+ * decoders the client actually uses. Run with {@code -prof gc} for allocations per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class DecodeBenchmark {
+
+    private ObjectMapper objectMapper;
+    private QueryResponseDecoder queryDecoder;
+    private TargetsDecoder targetsDecoder;
+    private byte[] targets;
+    private byte[] rules;
+    private byte[] metricNames;
+
+    /**
+     * Query responses of different shapes.
+     */
+    @State(Scope.Benchmark)
+    public static class Query {
+
+        @Param({Fixtures.VECTOR_SMALL, Fixtures.VECTOR_LARGE, Fixtures.MATRIX_WIDE})
+        public String fixture;
+
+        byte[] body;
+
+        @Setup
+        public void load() {
+            body = Fixtures.load(fixture);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        objectMapper = Fixtures.objectMapper();
+        queryDecoder = new QueryResponseDecoder();
+        Fixtures.inject(queryDecoder, "objectMapper", objectMapper);
+        targetsDecoder = new TargetsDecoder();
+        Fixtures.inject(targetsDecoder, "objectMapper", objectMapper);
+        targets = Fixtures.load(Fixtures.TARGETS);
+        rules = Fixtures.load(Fixtures.RULES);
+        metricNames = Fixtures.load(Fixtures.METRIC_NAMES);
+    }
+
+    @Benchmark
+    public QueryResponseDto queryDto(Query query) throws IOException {
+        return objectMapper.readValue(query.body, QueryResponseDto.class);
+    }
+
+    @Benchmark
+    public QueryResult queryColumnar(Query query) throws IOException {
+        return queryDecoder.decode(new ByteArrayInputStream(query.body));
+    }
+
+    @Benchmark
+    public TargetsResponseDto targetsDto() throws IOException {
+        return objectMapper.readValue(targets, TargetsResponseDto.class);
+    }
+
+    @Benchmark
+    public TargetSet targetsStreaming() throws IOException {
+        return targetsDecoder.decode(new ByteArrayInputStream(targets), TargetFilter.ALL);
+    }
+
+    @Benchmark
+    public RulesResponseDto rulesDto() throws IOException {
+        return objectMapper.readValue(rules, RulesResponseDto.class);
+    }
+
+    @Benchmark
+    public LabelsResponseDto metricNamesDto() throws IOException {
+        return objectMapper.readValue(metricNames, LabelsResponseDto.class);
+    }
+}
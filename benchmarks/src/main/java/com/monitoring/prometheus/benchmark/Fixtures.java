@@ -0,0 +1,142 @@
+package com.monitoring.prometheus.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.config.WithDefault;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Recorded Prometheus responses and the wiring the benchmarks need outside of CDI.
+ */
+public final class Fixtures {
+
+    /** Instant query, 20 series. */
+    public static final String VECTOR_SMALL = "query-vector-small";
+    /** Instant query, 10000 series. */
+    public static final String VECTOR_LARGE = "query-vector-large";
+    /** Range query, 200 series x 721 points. */
+    public static final String MATRIX_WIDE = "query-matrix-wide";
+    /** 3000 active and 5000 dropped targets. */
+    public static final String TARGETS = "targets-large";
+    /** 100 groups of 20 alerting and recording rules. */
+    public static final String RULES = "rules-large";
+    /** Values of __name__, 12000 metric names. */
+    public static final String METRIC_NAMES = "label-values-name";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Uncompressed body of a fixture from src/main/resources/fixtures.
+     */
+    public static byte[] load(String name) {
+        String resource = "/fixtures/" + name + ".json.gz";
+        try (InputStream in = Fixtures.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture " + resource);
+            }
+            try (GZIPInputStream body = new GZIPInputStream(in)) {
+                return body.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * ObjectMapper configured like the Quarkus one the REST client uses.
+     */
+    public static ObjectMapper objectMapper() {
+        return new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * A @ConfigMapping interface answering every property with its @WithDefault value.
+     */
+    public static <T> T defaults(Class<T> mapping) {
+        return mapping.cast(Proxy.newProxyInstance(mapping.getClassLoader(), new Class<?>[] {mapping},
+            (proxy, method, args) -> defaultValue(method)));
+    }
+
+    /**
+     * Set a field that CDI would inject.
+     */
+    public static void inject(Object target, String field, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + field + " into " + target.getClass().getName(), e);
+        }
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        WithDefault annotation = method.getAnnotation(WithDefault.class);
+        if (annotation == null) {
+            if (type.isInterface() && type != List.class && type != Map.class) {
+                return defaults(type);
+            }
+            if (type == Optional.class) {
+                return Optional.empty();
+            }
+            return type == Map.class ? Map.of() : type == List.class ? List.of() : null;
+        }
+        String value = annotation.value();
+        if (type == int.class || type == Integer.class) {
+            return Integer.parseInt(value);
+        }
+        if (type == long.class || type == Long.class) {
+            return Long.parseLong(value);
+        }
+        if (type == double.class || type == Double.class) {
+            return Double.parseDouble(value);
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return Boolean.parseBoolean(value);
+        }
+        if (type == Duration.class) {
+            return duration(value);
+        }
+        if (type.isEnum()) {
+            for (Object constant : type.getEnumConstants()) {
+                if (((Enum<?>) constant).name().equalsIgnoreCase(value.replace('-', '_'))) {
+                    return constant;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Parse a duration the way Quarkus configuration does: 500ms, 30s, 5m, 1h or ISO-8601.
+     */
+    static Duration duration(String value) {
+        if (value.startsWith("P") || value.startsWith("p")) {
+            return Duration.parse(value);
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            case 'd' -> Duration.ofDays(amount);
+            default -> Duration.ofSeconds(Long.parseLong(value));
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.monitoring.prometheus.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monitoring.prometheus.infrastructure.decoder.QueryResponseDecoder;
+import com.monitoring.prometheus.infrastructure.dto.QueryResponseDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retained heap of a decoded query response: the Jackson DTO tree against the columnar
+ * QueryResult. Decoding time is covered by {@link DecodeBenchmark}.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar -Xmx2g -XX:+UseSerialGC com.monitoring.prometheus.benchmark.HeapFootprint
+ * </pre>
+ *
+ * Each fixture is decoded often enough to retain about {@value #RETAINED_BODY_BYTES} bytes of
+ * response bodies and kept reachable; the per-copy figure is the heap growth after a full GC
+ * divided by the number of copies. Label sets are interned across decodes, as in the server, so
+ * the columnar figure is the cost of an answer whose series have been seen before: mostly the
+ * timestamp and value columns.
+ */
+public final class HeapFootprint {
+
+    private static final int MIN_COPIES = 20;
+    private static final long RETAINED_BODY_BYTES = 64L << 20;
+
+    private interface Decoder {
+        Object decode(byte[] body) throws IOException;
+    }
+
+    private HeapFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        ObjectMapper objectMapper = Fixtures.objectMapper();
+        QueryResponseDecoder columnar = new QueryResponseDecoder();
+        Fixtures.inject(columnar, "objectMapper", objectMapper);
+
+        System.out.printf("%-20s %10s %14s %14s %7s%n", "fixture", "body", "dto", "columnar", "ratio");
+        for (String fixture : List.of(Fixtures.VECTOR_SMALL, Fixtures.VECTOR_LARGE, Fixtures.MATRIX_WIDE)) {
+            byte[] body = Fixtures.load(fixture);
+            long dto = retained(body, b -> objectMapper.readValue(b, QueryResponseDto.class));
+            long decoded = retained(body, b -> columnar.decode(new ByteArrayInputStream(b)));
+            System.out.printf("%-20s %10s %14s %14s %6.1fx%n", fixture, kib(body.length), kib(dto), kib(decoded),
+                (double) dto / decoded);
+        }
+    }
+
+    private static long retained(byte[] body, Decoder decoder) throws IOException {
+        // Warm up so class loading and Jackson caches are not counted
+        decoder.decode(body);
+        int copies = (int) Math.max(MIN_COPIES, RETAINED_BODY_BYTES / body.length);
+        List<Object> keep = new ArrayList<>(copies);
+        long before = usedAfterGc();
+        for (int i = 0; i < copies; i++) {
+            keep.add(decoder.decode(body));
+        }
+        long after = usedAfterGc();
+        if (keep.size() != copies) {
+            throw new IllegalStateException("Decoded copies were not retained");
+        }
+        return (after - before) / copies;
+    }
+
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String kib(long bytes) {
+        return String.format("%,.1f KiB", bytes / 1024.0);
+    }
+}
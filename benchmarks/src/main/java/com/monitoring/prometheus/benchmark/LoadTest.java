@@ -0,0 +1,290 @@
+package com.monitoring.prometheus.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test of the MCP SSE transport: one SSE session per simulated client, each
+ * calling a tool again as soon as the previous answer arrives. Reports throughput and latency
+ * percentiles per concurrency level.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.monitoring.prometheus.benchmark.LoadTest \
+ *     --url http://localhost:9081 --concurrency 1,16,64,256 --duration 20s
+ * </pre>
+ *
+ * Options: {@code --url} (http://localhost:9081), {@code --concurrency} (1,16,64,256),
+ * {@code --duration} (20s per level), {@code --warmup} (5s per level), {@code --timeout} (60s per call),
+ * {@code --tool} (query) and {@code --arguments}, the tool arguments as JSON, where {@code ${n}} is
+ * replaced by a call counter so that every call misses the query cache
+ * (default {@code {"promql":"up + ${n}"}}).
+ */
+public final class LoadTest {
+
+    private static final String PROTOCOL_VERSION = "2024-11-05";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private final AtomicLong counter = new AtomicLong();
+    private final URI url;
+    private final String tool;
+    private final String arguments;
+    private final Duration timeout;
+
+    private LoadTest(Args args) {
+        this.url = URI.create(args.get("url", "http://localhost:9081"));
+        this.tool = args.get("tool", "query");
+        this.arguments = args.get("arguments", "{\"promql\":\"up + ${n}\"}");
+        this.timeout = args.getDuration("timeout", "60s");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Args options = Args.parse(args);
+        LoadTest test = new LoadTest(options);
+        Duration warmup = options.getDuration("warmup", "5s");
+        Duration duration = options.getDuration("duration", "20s");
+
+        System.out.printf("%11s %8s %7s %9s %9s %9s %9s %9s%n",
+            "concurrency", "calls", "errors", "calls/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (int concurrency : options.getInts("concurrency", "1,16,64,256")) {
+            Result result = test.run(concurrency, warmup, duration);
+            System.out.printf("%11d %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", concurrency, result.calls(),
+                result.errors(), result.calls() / (double) duration.toMillis() * 1000,
+                result.percentile(0.50), result.percentile(0.90), result.percentile(0.99), result.percentile(1.0));
+        }
+        System.exit(0);
+    }
+
+    private Result run(int concurrency, Duration warmup, Duration duration) throws Exception {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Result>> results = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                results.add(clients.submit(() -> client(measureFrom, measureUntil)));
+            }
+            Result total = new Result(new long[0], 0);
+            for (Future<Result> result : results) {
+                total = total.plus(result.get());
+            }
+            return total;
+        }
+    }
+
+    private Result client(long measureFrom, long measureUntil) throws Exception {
+        long[] latencies = new long[1024];
+        int calls = 0;
+        int errors = 0;
+        try (Session session = Session.open(this)) {
+            while (true) {
+                long start = System.nanoTime();
+                if (start >= measureUntil) {
+                    break;
+                }
+                boolean ok = session.callTool();
+                long end = System.nanoTime();
+                if (start < measureFrom || end > measureUntil) {
+                    continue;
+                }
+                if (!ok) {
+                    errors++;
+                }
+                if (calls == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, calls * 2);
+                }
+                latencies[calls++] = end - start;
+            }
+        }
+        return new Result(Arrays.copyOf(latencies, calls), errors);
+    }
+
+    /**
+     * Latencies in nanoseconds of the calls that started and finished inside the measurement window.
+     */
+    private record Result(long[] latencies, int errors) {
+
+        int calls() {
+            return latencies.length;
+        }
+
+        Result plus(Result other) {
+            long[] merged = Arrays.copyOf(latencies, latencies.length + other.latencies.length);
+            System.arraycopy(other.latencies, 0, merged, latencies.length, other.latencies.length);
+            return new Result(merged, errors + other.errors);
+        }
+
+        double percentile(double p) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    /**
+     * One MCP session over SSE: answers arrive as "message" events on the stream and are
+     * matched to the pending POSTed requests by JSON-RPC id.
+     */
+    private static final class Session implements Flow.Subscriber<String>, AutoCloseable {
+
+        private final LoadTest test;
+        private final CompletableFuture<URI> endpoint = new CompletableFuture<>();
+        private final Map<Long, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+        private volatile Flow.Subscription subscription;
+        private String event = "message";
+        private final StringBuilder data = new StringBuilder();
+
+        private Session(LoadTest test) {
+            this.test = test;
+        }
+
+        static Session open(LoadTest test) throws Exception {
+            Session session = new Session(test);
+            HttpRequest sse = HttpRequest.newBuilder(test.url.resolve("/mcp/sse"))
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+            test.http.sendAsync(sse, HttpResponse.BodyHandlers.fromLineSubscriber(session))
+                .whenComplete((response, failure) -> session.fail(failure != null ? failure
+                    : new IOException("SSE stream closed with status " + response.statusCode())));
+            session.endpoint.get(test.timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+            ObjectNode params = test.objectMapper.createObjectNode();
+            params.put("protocolVersion", PROTOCOL_VERSION);
+            params.putObject("capabilities");
+            params.putObject("clientInfo").put("name", "load-test").put("version", "1.0.0");
+            JsonNode initialized = session.request("initialize", params);
+            if (initialized.has("error")) {
+                throw new IOException("initialize failed: " + initialized.get("error"));
+            }
+            session.post(test.objectMapper.createObjectNode().put("jsonrpc", "2.0")
+                .put("method", "notifications/initialized"));
+            return session;
+        }
+
+        /**
+         * Call the tool once; false when the call failed or the tool reported an error.
+         */
+        boolean callTool() {
+            try {
+                ObjectNode params = test.objectMapper.createObjectNode();
+                params.put("name", test.tool);
+                String arguments = test.arguments.replace("${n}", Long.toString(test.counter.incrementAndGet()));
+                params.set("arguments", test.objectMapper.readTree(arguments));
+                JsonNode response = request("tools/call", params);
+                return !response.has("error") && !response.path("result").path("isError").asBoolean(false);
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        private JsonNode request(String method, ObjectNode params) throws Exception {
+            long id = test.counter.incrementAndGet();
+            CompletableFuture<JsonNode> response = new CompletableFuture<>();
+            pending.put(id, response);
+            try {
+                post(test.objectMapper.createObjectNode().put("jsonrpc", "2.0").put("id", id)
+                    .put("method", method).set("params", params));
+                return response.get(test.timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } finally {
+                pending.remove(id);
+            }
+        }
+
+        private void post(JsonNode message) throws Exception {
+            HttpRequest request = HttpRequest.newBuilder(endpoint.getNow(null))
+                .header("Content-Type", "application/json")
+                .timeout(test.timeout)
+                .POST(HttpRequest.BodyPublishers.ofString(test.objectMapper.writeValueAsString(message)))
+                .build();
+            HttpResponse<Void> response = test.http.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                throw new IOException("POST " + message.path("method").asText() + " returned " + response.statusCode());
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith("event:")) {
+                event = line.substring(6).trim();
+            } else if (line.startsWith("data:")) {
+                data.append(line.substring(5).trim());
+            } else if (line.isEmpty() && !data.isEmpty()) {
+                dispatch(event, data.toString());
+                event = "message";
+                data.setLength(0);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            fail(new IOException("SSE stream completed"));
+        }
+
+        @Override
+        public void close() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        private void dispatch(String name, String payload) {
+            if ("endpoint".equals(name)) {
+                endpoint.complete(test.url.resolve(payload));
+                return;
+            }
+            try {
+                JsonNode message = test.objectMapper.readTree(payload);
+                CompletableFuture<JsonNode> response = pending.get(message.path("id").asLong(-1));
+                if (response != null) {
+                    response.complete(message);
+                }
+            } catch (IOException e) {
+                // Not a JSON-RPC message; ignore it
+            }
+        }
+
+        private void fail(Throwable failure) {
+            endpoint.completeExceptionally(failure);
+            pending.values().forEach(response -> response.completeExceptionally(failure));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.monitoring.prometheus.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to first tool response of a stdio session: launches the server, sends initialize and one
+ * tool call as soon as it can, and measures from process start until each answer arrives.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.monitoring.prometheus.benchmark.StartupProbe --runs 10 \
+ *     --command "../target/prometheus-mcp-1.0.0-runner -Dquarkus.mcp.server.stdio.enabled=true -Dquarkus.http.host-enabled=false"
+ * </pre>
+ *
+ * Options: {@code --command} (the JVM jar in stdio mode), {@code --runs} (10), {@code --tool} (query)
+ * and {@code --arguments} (the tool arguments as JSON, default {@code {"promql":"up"}}). The server
+ * inherits the environment, so PROMETHEUS_URL selects the Prometheus it talks to.
+ */
+public final class StartupProbe {
+
+    private static final String PROTOCOL_VERSION = "2024-11-05";
+    private static final String JVM_COMMAND = "java -Dquarkus.mcp.server.stdio.enabled=true "
+        + "-Dquarkus.http.host-enabled=false -jar ../target/quarkus-app/quarkus-run.jar";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> command;
+    private final String tool;
+    private final String arguments;
+
+    private StartupProbe(Args args) {
+        this.command = List.of(args.get("command", JVM_COMMAND).trim().split("\\s+"));
+        this.tool = args.get("tool", "query");
+        this.arguments = args.get("arguments", "{\"promql\":\"up\"}");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Args options = Args.parse(args);
+        StartupProbe probe = new StartupProbe(options);
+        int runs = options.getInt("runs", 10);
+
+        long[] initialized = new long[runs];
+        long[] firstTool = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] run = probe.run();
+            initialized[i] = run[0];
+            firstTool[i] = run[1];
+            System.out.printf("run %2d: initialize %6d ms, first tool response %6d ms%n", i + 1, run[0], run[1]);
+        }
+        System.out.printf("median: initialize %6d ms, first tool response %6d ms (%s)%n",
+            median(initialized), median(firstTool), String.join(" ", probe.command));
+    }
+
+    /**
+     * Milliseconds from launch until the initialize answer and until the tool answer.
+     */
+    private long[] run() throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try (OutputStream in = process.getOutputStream();
+             BufferedReader out = new BufferedReader(
+                 new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            ObjectNode params = objectMapper.createObjectNode();
+            params.put("protocolVersion", PROTOCOL_VERSION);
+            params.putObject("capabilities");
+            params.putObject("clientInfo").put("name", "startup-probe").put("version", "1.0.0");
+            send(in, objectMapper.createObjectNode().put("jsonrpc", "2.0").put("id", 1)
+                .put("method", "initialize").set("params", params));
+            await(out, 1);
+            long initialized = System.nanoTime();
+
+            send(in, objectMapper.createObjectNode().put("jsonrpc", "2.0").put("method", "notifications/initialized"));
+            ObjectNode call = objectMapper.createObjectNode();
+            call.put("name", tool);
+            call.set("arguments", objectMapper.readTree(arguments));
+            send(in, objectMapper.createObjectNode().put("jsonrpc", "2.0").put("id", 2)
+                .put("method", "tools/call").set("params", call));
+            JsonNode answer = await(out, 2);
+            long answered = System.nanoTime();
+            if (answer.has("error") || answer.path("result").path("isError").asBoolean(false)) {
+                System.err.println("Tool call failed: " + answer);
+            }
+            return new long[] {
+                TimeUnit.NANOSECONDS.toMillis(initialized - start),
+                TimeUnit.NANOSECONDS.toMillis(answered - start)
+            };
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void send(OutputStream in, JsonNode message) throws IOException {
+        in.write(objectMapper.writeValueAsBytes(message));
+        in.write('\n');
+        in.flush();
+    }
+
+    private JsonNode await(BufferedReader out, int id) throws IOException {
+        String line;
+        while ((line = out.readLine()) != null) {
+            if (!line.startsWith("{")) {
+                continue;
+            }
+            JsonNode message = objectMapper.readTree(line);
+            if (message.path("id").asInt(-1) == id) {
+                return message;
+            }
+        }
+        throw new IOException("Server exited before answering request " + id);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
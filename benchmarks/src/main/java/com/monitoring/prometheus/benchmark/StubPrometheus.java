@@ -0,0 +1,153 @@
+package com.monitoring.prometheus.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Prometheus HTTP API stand-in answering every request with a recorded fixture after a fixed
+ * latency, so load tests measure the MCP server rather than a real Prometheus.
+ *
+ * Bodies are sent gzip-compressed when the client accepts it, like Prometheus does. The stub
+ * counts requests, TCP connections (distinct client addresses) and body bytes on the wire;
+ * {@code GET /stub/stats} returns the counters and resets them, so a client configuration can be
+ * compared by the traffic it causes. HTTP/2 is not served: the JDK server only speaks HTTP/1.1.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.monitoring.prometheus.benchmark.StubPrometheus --port 9090 --latency 200ms
+ * </pre>
+ *
+ * Options: {@code --port} (9090), {@code --latency} (100ms), {@code --gzip} (true), {@code --query} and
+ * {@code --query-range}, the fixtures answering /api/v1/query and /api/v1/query_range
+ * (query-vector-small, query-matrix-wide).
+ */
+public final class StubPrometheus {
+
+    private static final byte[] SERIES = json("{\"status\":\"success\",\"data\":[]}");
+    private static final byte[] LABELS = json("{\"status\":\"success\",\"data\":[\"__name__\",\"instance\",\"job\"]}");
+    private static final byte[] ALERTS = json("{\"status\":\"success\",\"data\":{\"alerts\":[]}}");
+    private static final byte[] BUILD_INFO = json("{\"status\":\"success\",\"data\":{\"version\":\"2.53.0\","
+        + "\"revision\":\"stub\",\"branch\":\"HEAD\",\"buildUser\":\"stub\",\"buildDate\":\"20240101-00:00:00\","
+        + "\"goVersion\":\"go1.22.4\"}}");
+    private static final byte[] RUNTIME_INFO = json("{\"status\":\"success\",\"data\":{\"startTime\":"
+        + "\"2024-01-01T00:00:00Z\",\"CWD\":\"/prometheus\",\"reloadConfigSuccess\":true,"
+        + "\"lastConfigTime\":\"2024-01-01T00:00:00Z\",\"storageRetention\":\"15d\"}}");
+    private static final byte[] CONFIG = json("{\"status\":\"success\",\"data\":{\"yaml\":\"global: {}\\n\"}}");
+    private static final byte[] NOT_FOUND = json("{\"status\":\"error\",\"errorType\":\"not_found\","
+        + "\"error\":\"not served by the stub\"}");
+
+    private final Duration latency;
+    private final boolean gzip;
+    private final Map<byte[], byte[]> compressed = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+    private final byte[] query;
+    private final byte[] queryRange;
+    private final byte[] targets = Fixtures.load(Fixtures.TARGETS);
+    private final byte[] rules = Fixtures.load(Fixtures.RULES);
+    private final byte[] labelValues = Fixtures.load(Fixtures.METRIC_NAMES);
+
+    private StubPrometheus(Args args) {
+        this.latency = args.getDuration("latency", "100ms");
+        this.gzip = Boolean.parseBoolean(args.get("gzip", "true"));
+        this.query = Fixtures.load(args.get("query", Fixtures.VECTOR_SMALL));
+        this.queryRange = Fixtures.load(args.get("query-range", Fixtures.MATRIX_WIDE));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Args options = Args.parse(args);
+        StubPrometheus stub = new StubPrometheus(options);
+        int port = options.getInt("port", 9090);
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", stub::handle);
+        server.createContext("/stub/stats", stub::stats);
+        server.start();
+        System.out.printf("Stub Prometheus on :%d, latency %d ms, gzip %s%n", port, stub.latency.toMillis(), stub.gzip);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            connections.add(exchange.getRemoteAddress());
+            byte[] body = route(exchange.getRequestURI().getPath());
+            int status = body == NOT_FOUND ? 404 : 200;
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                body = compressed.computeIfAbsent(body, StubPrometheus::gzip);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            bytes.add(body.length);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body = json(String.format("{\"requests\":%d,\"connections\":%d,\"bytes\":%d}",
+                requests.sumThenReset(), connections.size(), bytes.sumThenReset()));
+            connections.clear();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private byte[] route(String path) {
+        if (path.startsWith("/api/v1/label/")) {
+            return labelValues;
+        }
+        return switch (path) {
+            case "/api/v1/query" -> query;
+            case "/api/v1/query_range" -> queryRange;
+            case "/api/v1/series" -> SERIES;
+            case "/api/v1/labels" -> LABELS;
+            case "/api/v1/targets" -> targets;
+            case "/api/v1/rules" -> rules;
+            case "/api/v1/alerts" -> ALERTS;
+            case "/api/v1/status/buildinfo" -> BUILD_INFO;
+            case "/api/v1/status/runtimeinfo" -> RUNTIME_INFO;
+            case "/api/v1/status/config" -> CONFIG;
+            default -> NOT_FOUND;
+        };
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 8);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] json(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,67 @@
+package com.monitoring.prometheus.application.analysis;
+
+import com.monitoring.prometheus.domain.model.Labels;
+import com.monitoring.prometheus.infrastructure.decoder.SampleHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SampleHandler that analyzes each series while the response is decoded.
+ *
+ * Samples are fed to a {@link SeriesAnalyzer} and dropped, and only anomalous
+ * series are kept with their bounded analysis, so memory depends on the number
+ * of series and not on the length of the range.
+ */
+public class AnalyzingSampleHandler implements SampleHandler {
+
+    private final double changeThreshold;
+    private final double spikeThreshold;
+    private final List<AnomalyReport.Entry> anomalous = new ArrayList<>();
+    private String resultType;
+    private int totalSeries;
+    private long totalSamples;
+    private Labels labels;
+    private SeriesAnalyzer current;
+
+    public AnalyzingSampleHandler(double changeThreshold, double spikeThreshold) {
+        this.changeThreshold = changeThreshold;
+        this.spikeThreshold = spikeThreshold;
+    }
+
+    @Override
+    public void resultType(String resultType) {
+        this.resultType = resultType;
+    }
+
+    @Override
+    public void beginSeries(Map<String, String> labels) {
+        this.labels = Labels.of(labels);
+        current = new SeriesAnalyzer(changeThreshold, spikeThreshold);
+        totalSeries++;
+    }
+
+    @Override
+    public void sample(long timestampMillis, double value) {
+        current.add(timestampMillis, value);
+        totalSamples++;
+    }
+
+    @Override
+    public void endSeries() {
+        SeriesAnalyzer.Analysis analysis = current.result();
+        if (analysis.isAnomalous()) {
+            anomalous.add(new AnomalyReport.Entry(labels, analysis));
+        }
+        current = null;
+    }
+
+    public String resultType() {
+        return resultType;
+    }
+
+    public AnomalyReport report() {
+        return AnomalyReport.of(anomalous, totalSeries, totalSamples);
+    }
+}
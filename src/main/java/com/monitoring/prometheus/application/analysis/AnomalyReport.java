@@ -0,0 +1,131 @@
+package com.monitoring.prometheus.application.analysis;
+
+import com.monitoring.prometheus.application.format.Samples;
+import com.monitoring.prometheus.domain.model.Labels;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.domain.model.Series;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Summary of a range result that keeps only what changed: series with level
+ * shifts or spikes, most severe first, with their statistics and the
+ * timestamps of the events. Quiet series are only counted.
+ */
+public final class AnomalyReport {
+
+    private static final int MAX_EVENTS_SHOWN = 5;
+
+    private final List<Entry> anomalous;
+    private final int totalSeries;
+    private final long totalSamples;
+
+    record Entry(Labels labels, SeriesAnalyzer.Analysis analysis) {}
+
+    private AnomalyReport(List<Entry> anomalous, int totalSeries, long totalSamples) {
+        this.anomalous = anomalous;
+        this.totalSeries = totalSeries;
+        this.totalSamples = totalSamples;
+    }
+
+    /**
+     * Analyze every series of the result in one pass each.
+     */
+    public static AnomalyReport analyze(QueryResult result, double changeThreshold, double spikeThreshold) {
+        List<Entry> anomalous = new ArrayList<>();
+        for (Series series : result.series()) {
+            SeriesAnalyzer.Analysis analysis = SeriesAnalyzer.analyze(series, changeThreshold, spikeThreshold);
+            if (analysis.isAnomalous()) {
+                anomalous.add(new Entry(series.labels(), analysis));
+            }
+        }
+        return of(anomalous, result.series().size(), result.sampleCount());
+    }
+
+    /**
+     * Report of the anomalous series, ranked most severe first.
+     */
+    static AnomalyReport of(List<Entry> anomalous, int totalSeries, long totalSamples) {
+        List<Entry> ranked = new ArrayList<>(anomalous);
+        ranked.sort(Comparator.comparingDouble((Entry e) -> e.analysis().score()).reversed());
+        return new AnomalyReport(ranked, totalSeries, totalSamples);
+    }
+
+    public int anomalousSeries() {
+        return anomalous.size();
+    }
+
+    /**
+     * Write the report, showing at most maxSeries anomalous series (0 for all).
+     */
+    public void format(StringBuilder sb, int maxSeries) {
+        int shown = maxSeries > 0 ? Math.min(maxSeries, anomalous.size()) : anomalous.size();
+        sb.append("Analyzed ").append(totalSeries).append(" series (").append(totalSamples).append(" samples): ")
+            .append(anomalous.size()).append(" with change points or spikes, ")
+            .append(totalSeries - anomalous.size()).append(" quiet\n\n");
+        if (anomalous.isEmpty()) {
+            sb.append("No change points or spikes detected.\n");
+            return;
+        }
+
+        for (Entry entry : anomalous.subList(0, shown)) {
+            SeriesAnalyzer.Analysis a = entry.analysis();
+            sb.append("Metric: ");
+            Samples.appendLabels(sb, entry.labels()).append("\n");
+            sb.append("Stats: mean ");
+            Samples.appendValue(sb, a.mean()).append(", stddev ");
+            Samples.appendValue(sb, a.stddev()).append(", p50 ");
+            Samples.appendValue(sb, a.p50()).append(", p95 ");
+            Samples.appendValue(sb, a.p95()).append(", min ");
+            Samples.appendValue(sb, a.min()).append(", max ");
+            Samples.appendValue(sb, a.max()).append(", slope ");
+            Samples.appendValue(sb, a.slopePerSecond()).append("/s\n");
+
+            if (!a.changePoints().isEmpty()) {
+                sb.append("Change points:\n");
+                for (SeriesAnalyzer.ChangePoint changePoint : strongest(a.changePoints(),
+                        Comparator.comparingDouble(SeriesAnalyzer.ChangePoint::magnitude))) {
+                    sb.append("  ");
+                    Samples.appendTimestamp(sb, changePoint.timestampMillis()).append(": ");
+                    Samples.appendValue(sb, changePoint.before()).append(" -> ");
+                    Samples.appendValue(sb, changePoint.after()).append(" (");
+                    appendRounded(sb, changePoint.magnitude()).append(" stddev)\n");
+                }
+            }
+            if (!a.spikes().isEmpty()) {
+                sb.append("Spikes:\n");
+                for (SeriesAnalyzer.Spike spike : strongest(a.spikes(),
+                        Comparator.comparingDouble(s -> Math.abs(s.zScore())))) {
+                    sb.append("  ");
+                    Samples.appendTimestamp(sb, spike.timestampMillis()).append(": ");
+                    Samples.appendValue(sb, spike.value()).append(" (z ");
+                    appendRounded(sb, spike.zScore()).append(")\n");
+                }
+            }
+            sb.append("\n");
+        }
+        if (shown < anomalous.size()) {
+            sb.append("Showing ").append(shown).append(" of ").append(anomalous.size())
+                .append(" anomalous series (most severe first)\n");
+        }
+    }
+
+    /**
+     * The strongest events, kept in time order.
+     */
+    private static <T> List<T> strongest(List<T> events, Comparator<T> strength) {
+        if (events.size() <= MAX_EVENTS_SHOWN) {
+            return events;
+        }
+        List<T> sorted = new ArrayList<>(events);
+        sorted.sort(strength.reversed());
+        List<T> kept = sorted.subList(0, MAX_EVENTS_SHOWN);
+        return events.stream().filter(kept::contains).toList();
+    }
+
+    private static StringBuilder appendRounded(StringBuilder sb, double value) {
+        return sb.append(Math.round(value * 10) / 10.0);
+    }
+}
@@ -0,0 +1,268 @@
+package com.monitoring.prometheus.application.analysis;
+
+import com.monitoring.prometheus.domain.model.Series;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Single-pass analysis of one series, fed sample by sample.
+ *
+ * - mean and standard deviation with Welford's algorithm
+ * - median and 95th percentile from a {@link TDigest}
+ * - least-squares slope from incrementally updated co-moments
+ * - level shifts with a two-sided CUSUM on samples standardized against the
+ *   current regime and clipped at 3 standard deviations, so a shift takes
+ *   several deviating samples; after a shift the regime restarts at the new level
+ *   and keeps its deviation, so a short run does not turn noise into events
+ * - spikes: isolated samples far from the regime that are not part of a shift
+ *
+ * NaN and infinite samples are skipped: a single +Inf (e.g. from histogram_quantile)
+ * would otherwise turn the regime, the CUSUM sums and the quantiles into NaN for
+ * the rest of the series.
+ */
+public final class SeriesAnalyzer {
+
+    private static final int WARMUP = 20;
+    private static final double DRIFT = 1;
+    private static final double CLIP = 3;
+    private static final int MAX_EVENTS = 64;
+
+    private final double changeThreshold;
+    private final double spikeThreshold;
+    private final TDigest digest = new TDigest(100);
+
+    // Whole series
+    private int count;
+    private double mean;
+    private double m2;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double meanTime;
+    private double timeM2;
+    private double coMoment;
+    private long firstTimestamp;
+
+    // Current regime and the CUSUM runs above and below it
+    private final Moments regime = new Moments();
+    private final Moments upRun = new Moments();
+    private final Moments downRun = new Moments();
+    private double upSum;
+    private double downSum;
+    private long upStart;
+    private long downStart;
+
+    private final List<ChangePoint> changePoints = new ArrayList<>();
+    private final List<Spike> spikes = new ArrayList<>();
+
+    /**
+     * @param changeThreshold CUSUM decision threshold, in standard deviations of the regime
+     * @param spikeThreshold  z-score from which a single sample counts as a spike
+     */
+    public SeriesAnalyzer(double changeThreshold, double spikeThreshold) {
+        this.changeThreshold = changeThreshold;
+        this.spikeThreshold = spikeThreshold;
+    }
+
+    /**
+     * A sustained shift of the level starting at the timestamp.
+     */
+    public record ChangePoint(long timestampMillis, double before, double after, double magnitude) {}
+
+    /**
+     * A single sample deviating from the level by zScore standard deviations.
+     */
+    public record Spike(long timestampMillis, double value, double zScore) {}
+
+    /**
+     * Result of the analysis; events are ordered by time.
+     *
+     * @param slopePerSecond least-squares trend of the value per second
+     * @param score          largest event magnitude in standard deviations, 0 without events
+     */
+    public record Analysis(
+        int count,
+        double mean,
+        double stddev,
+        double min,
+        double max,
+        double p50,
+        double p95,
+        double slopePerSecond,
+        List<ChangePoint> changePoints,
+        List<Spike> spikes,
+        double score
+    ) {
+        public boolean isAnomalous() {
+            return !changePoints.isEmpty() || !spikes.isEmpty();
+        }
+    }
+
+    public static Analysis analyze(Series series, double changeThreshold, double spikeThreshold) {
+        SeriesAnalyzer analyzer = new SeriesAnalyzer(changeThreshold, spikeThreshold);
+        long[] timestamps = series.timestamps();
+        double[] values = series.values();
+        for (int i = 0; i < timestamps.length; i++) {
+            analyzer.add(timestamps[i], values[i]);
+        }
+        return analyzer.result();
+    }
+
+    public void add(long timestampMillis, double value) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+        updateTotals(timestampMillis, value);
+        digest.add(value);
+
+        if (regime.count < WARMUP) {
+            regime.add(value);
+            return;
+        }
+        double sigma = regime.sigma();
+        double z = (value - regime.mean) / sigma;
+
+        double clipped = Math.max(-CLIP, Math.min(CLIP, z));
+        upSum = track(upSum, clipped - DRIFT, upRun, timestampMillis, value, true);
+        downSum = track(downSum, -clipped - DRIFT, downRun, timestampMillis, value, false);
+
+        if (upSum > changeThreshold || downSum > changeThreshold) {
+            boolean up = upSum > changeThreshold;
+            Moments run = up ? upRun : downRun;
+            long start = up ? upStart : downStart;
+            record(changePoints, new ChangePoint(start, regime.mean, run.mean, Math.abs(run.mean - regime.mean) / sigma));
+            // Samples of the shift are not spikes
+            spikes.removeIf(spike -> spike.timestampMillis() >= start);
+            regime.shiftTo(run);
+            upRun.reset();
+            downRun.reset();
+            upSum = 0;
+            downSum = 0;
+            return;
+        }
+
+        if (Math.abs(z) >= spikeThreshold) {
+            record(spikes, new Spike(timestampMillis, value, z));
+        } else {
+            // Spikes are kept out of the regime so they do not inflate its deviation
+            regime.add(value);
+        }
+    }
+
+    public Analysis result() {
+        double stddev = count > 0 ? Math.sqrt(m2 / count) : Double.NaN;
+        double slope = timeM2 > 0 ? coMoment / timeM2 * 1000 : 0;
+        double score = 0;
+        for (ChangePoint changePoint : changePoints) {
+            score = Math.max(score, changePoint.magnitude());
+        }
+        for (Spike spike : spikes) {
+            score = Math.max(score, Math.abs(spike.zScore()));
+        }
+        return new Analysis(count, count > 0 ? mean : Double.NaN, stddev, min, max,
+            digest.quantile(0.5), digest.quantile(0.95), slope,
+            List.copyOf(changePoints), List.copyOf(spikes), score);
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private void updateTotals(long timestampMillis, double value) {
+        if (count == 0) {
+            firstTimestamp = timestampMillis;
+            min = value;
+            max = value;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+        // Times relative to the first sample keep the co-moments well conditioned
+        double t = timestampMillis - firstTimestamp;
+        double deltaTime = t - meanTime;
+        double deltaValue = value - mean;
+        meanTime += deltaTime / count;
+        mean += deltaValue / count;
+        m2 += deltaValue * (value - mean);
+        timeM2 += deltaTime * (t - meanTime);
+        coMoment += deltaTime * (value - mean);
+    }
+
+    /**
+     * Advance one CUSUM statistic; a run starts when it leaves zero and is discarded when it returns.
+     */
+    private double track(double sum, double increment, Moments run, long timestampMillis, double value, boolean up) {
+        double next = Math.max(0, sum + increment);
+        if (next == 0) {
+            run.reset();
+            return 0;
+        }
+        if (sum == 0) {
+            if (up) {
+                upStart = timestampMillis;
+            } else {
+                downStart = timestampMillis;
+            }
+        }
+        run.add(value);
+        return next;
+    }
+
+    /**
+     * Keep at most MAX_EVENTS events, dropping the weakest.
+     */
+    private static <T> void record(List<T> events, T event) {
+        events.add(event);
+        if (events.size() > MAX_EVENTS) {
+            Comparator<T> strength = Comparator.comparingDouble(SeriesAnalyzer::strength);
+            events.remove(events.stream().min(strength).orElseThrow());
+        }
+    }
+
+    private static double strength(Object event) {
+        return event instanceof Spike spike ? Math.abs(spike.zScore()) : ((ChangePoint) event).magnitude();
+    }
+
+    /**
+     * Running count, mean and squared deviations of a set of samples.
+     */
+    private static final class Moments {
+
+        private int count;
+        private double mean;
+        private double m2;
+
+        void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+
+        /**
+         * Standard deviation, floored at 1% of the level so flat series do not turn noise into events.
+         */
+        double sigma() {
+            double sigma = count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+            return Math.max(sigma, Math.max(Math.abs(mean) * 0.01, 1e-9));
+        }
+
+        /**
+         * Move to the level of the run, keeping the deviation measured so far.
+         */
+        void shiftTo(Moments run) {
+            double variance = count > 1 ? m2 / (count - 1) : 0;
+            count = run.count;
+            mean = run.mean;
+            m2 = variance * (count - 1);
+        }
+
+        void reset() {
+            count = 0;
+            mean = 0;
+            m2 = 0;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.monitoring.prometheus.application.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest (Dunning and Ertl, "Computing Extremely Accurate Quantiles
+ * Using t-Digests") for streaming quantile estimates in bounded memory.
+ *
+ * Samples are buffered and periodically merged into sorted centroids whose
+ * weight is limited by 4 * n * q * (1 - q) / compression, so centroids near
+ * the tails stay small and extreme quantiles remain accurate.
+ */
+final class TDigest {
+
+    private final double compression;
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+    private final double[] buffer;
+    private int buffered;
+    private double totalWeight;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    TDigest(double compression) {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression * 2) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.buffer = new double[capacity * 5];
+    }
+
+    void add(double value) {
+        if (buffered == buffer.length) {
+            merge();
+        }
+        buffer[buffered++] = value;
+        min = Double.isNaN(min) ? value : Math.min(min, value);
+        max = Double.isNaN(max) ? value : Math.max(max, value);
+    }
+
+    /**
+     * Estimated value at quantile q (0..1), or NaN when empty.
+     */
+    double quantile(double q) {
+        merge();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+        double index = q * totalWeight;
+        if (index <= weights[0] / 2) {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+        double cumulative = 0;
+        for (int i = 0; i < centroids - 1; i++) {
+            double center = cumulative + weights[i] / 2;
+            double nextCenter = cumulative + weights[i] + weights[i + 1] / 2;
+            if (index <= nextCenter) {
+                double fraction = (index - center) / (nextCenter - center);
+                return means[i] + (means[i + 1] - means[i]) * fraction;
+            }
+            cumulative += weights[i];
+        }
+        double lastCenter = totalWeight - weights[centroids - 1] / 2;
+        double fraction = Math.min(1, (index - lastCenter) / (weights[centroids - 1] / 2));
+        return means[centroids - 1] + (max - means[centroids - 1]) * fraction;
+    }
+
+    private void merge() {
+        if (buffered == 0) {
+            return;
+        }
+        Arrays.sort(buffer, 0, buffered);
+        double newTotal = totalWeight + buffered;
+        double[] mergedMeans = new double[means.length];
+        double[] mergedWeights = new double[weights.length];
+        int merged = 0;
+        double cumulative = 0;
+
+        // Walk the existing centroids and the sorted buffer in order of mean
+        int c = 0;
+        int b = 0;
+        while (c < centroids || b < buffered) {
+            double mean;
+            double weight;
+            if (b >= buffered || c < centroids && means[c] <= buffer[b]) {
+                mean = means[c];
+                weight = weights[c++];
+            } else {
+                mean = buffer[b++];
+                weight = 1;
+            }
+            if (merged > 0) {
+                // Quantile at the center of the centroid if the item were merged into it
+                double q = (cumulative - mergedWeights[merged - 1] + (mergedWeights[merged - 1] + weight) / 2) / newTotal;
+                double limit = 4 * newTotal * q * (1 - q) / compression;
+                if (mergedWeights[merged - 1] + weight <= Math.max(1, limit)) {
+                    double total = mergedWeights[merged - 1] + weight;
+                    mergedMeans[merged - 1] += (mean - mergedMeans[merged - 1]) * weight / total;
+                    mergedWeights[merged - 1] = total;
+                    cumulative += weight;
+                    continue;
+                }
+            }
+            if (merged == mergedMeans.length) {
+                mergedMeans = Arrays.copyOf(mergedMeans, merged * 2);
+                mergedWeights = Arrays.copyOf(mergedWeights, merged * 2);
+            }
+            mergedMeans[merged] = mean;
+            mergedWeights[merged] = weight;
+            merged++;
+            cumulative += weight;
+        }
+
+        means = mergedMeans;
+        weights = mergedWeights;
+        centroids = merged;
+        totalWeight = newTotal;
+        buffered = 0;
+    }
+}
@@ -0,0 +1,76 @@
+package com.monitoring.prometheus.application.cache;
+
+/**
+ * Cache key of a query: normalized PromQL plus the aligned evaluation window.
+ *
+ * Instant queries use start == end and a zero step. The backend is empty for
+ * the default Prometheus and holds the backend name for federated queries.
+ */
+public record QueryKey(
+    String query,
+    long startMillis,
+    long endMillis,
+    long stepMillis,
+    String backend
+) {
+    public static QueryKey instant(String promql, long timeMillis) {
+        return new QueryKey(normalize(promql), timeMillis, timeMillis, 0, "");
+    }
+
+    public static QueryKey range(String promql, long startMillis, long endMillis, long stepMillis) {
+        return new QueryKey(normalize(promql), startMillis, endMillis, stepMillis, "");
+    }
+
+    /**
+     * The same query against the named backend.
+     */
+    public QueryKey on(String backendName) {
+        return new QueryKey(query, startMillis, endMillis, stepMillis, backendName);
+    }
+
+    /**
+     * Collapse whitespace outside string literals so equivalent expressions share a key.
+     */
+    public static String normalize(String promql) {
+        if (promql == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(promql.length());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < promql.length(); i++) {
+            char c = promql.charAt(i);
+            if (quote != 0) {
+                sb.append(c);
+                if (c == '\\' && i + 1 < promql.length()) {
+                    sb.append(promql.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace && isWordChar(c) && isWordChar(sb.charAt(sb.length() - 1))) {
+                    sb.append(' ');
+                }
+                pendingSpace = false;
+                if (c == '"' || c == '\'' || c == '`') {
+                    quote = c;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Approximate heap footprint of the key, used for size-bounded caches.
+     */
+    public long estimatedBytes() {
+        return 64L + 2L * (query.length() + backend.length());
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == ':' || c == '.';
+    }
+}
@@ -0,0 +1,117 @@
+package com.monitoring.prometheus.application.cache;
+
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.infrastructure.config.CacheConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of decoded query results with TTL expiry and
+ * LRU eviction bounded by the estimated size of the cached series.
+ */
+@ApplicationScoped
+public class QueryResultCache {
+
+    private static final Logger LOG = Logger.getLogger(QueryResultCache.class);
+
+    @Inject
+    CacheConfig config;
+
+    private final LinkedHashMap<QueryKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long bytes;
+
+    private record Entry(QueryResult result, long expiresAtNanos, long bytes) {}
+
+    /**
+     * Hit/miss counters and current occupancy.
+     */
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes) {}
+
+    /**
+     * Return the cached result for the key, or load, cache and return it.
+     * Failed loads are not cached.
+     */
+    public QueryResult get(QueryKey key, Callable<QueryResult> loader) throws Exception {
+        if (!config.enabled()) {
+            return loader.call();
+        }
+
+        QueryResult cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            LOG.debugf("Cache hit for %s", key.query());
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        QueryResult result = loader.call();
+        put(key, result);
+        return result;
+    }
+
+    /**
+     * Return the cached, unexpired result for the key without loading.
+     */
+    public synchronized QueryResult lookup(QueryKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos() > 0) {
+            remove(key, entry);
+            return null;
+        }
+        return entry.result();
+    }
+
+    public synchronized void put(QueryKey key, QueryResult result) {
+        long size = key.estimatedBytes() + result.estimatedBytes();
+        if (size > config.maxBytes()) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(result, System.nanoTime() + config.ttl().toNanos(), size));
+        if (previous != null) {
+            bytes -= previous.bytes();
+        }
+        bytes += size;
+        evictToBudget();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), entries.size(), bytes);
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private void evictToBudget() {
+        Iterator<Map.Entry<QueryKey, Entry>> it = entries.entrySet().iterator();
+        while (bytes > config.maxBytes() && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            bytes -= eldest.bytes();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(QueryKey key, Entry entry) {
+        entries.remove(key);
+        bytes -= entry.bytes();
+    }
+}
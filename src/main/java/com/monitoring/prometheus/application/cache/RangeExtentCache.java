@@ -0,0 +1,246 @@
+package com.monitoring.prometheus.application.cache;
+
+import com.monitoring.prometheus.application.query.RangeFetcher;
+import com.monitoring.prometheus.domain.model.Matrices;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.infrastructure.config.CacheConfig;
+import com.monitoring.prometheus.infrastructure.store.DiskResultStore;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-query cache of step-aligned range result extents, in the style of the
+ * Cortex/Thanos query-frontend results cache.
+ *
+ * A rolling window such as "last 24h at 1m" overlaps the previous call almost
+ * entirely, so only the newly elapsed tail is fetched and merged with the cached samples.
+ *
+ * With the disk tier enabled, extents are written back to the {@link DiskResultStore}
+ * when evicted and on shutdown, and read from it on a memory miss, so they survive
+ * restarts and outlive the heap budget. Write-backs happen on the store's background
+ * writer, and an extent is only rewritten once a sizeable part of it is not on disk yet,
+ * so extents too large for memory are not rewritten on every partial hit.
+ */
+@ApplicationScoped
+public class RangeExtentCache {
+
+    private static final Logger LOG = Logger.getLogger(RangeExtentCache.class);
+    private static final long NOT_PERSISTED = Long.MIN_VALUE;
+    /** Share of an extent that must be missing on disk before it is written again. */
+    private static final double REWRITE_FRACTION = 0.25;
+
+    @Inject
+    CacheConfig config;
+
+    @Inject
+    DiskResultStore diskResultStore;
+
+    private final LinkedHashMap<ExtentKey, Extent> extents = new LinkedHashMap<>(64, 0.75f, true);
+    private final AtomicLong partialHits = new AtomicLong();
+    private final AtomicLong fullHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long bytes;
+
+    /**
+     * Hit/miss counters and current occupancy.
+     */
+    public record Stats(long fullHits, long partialHits, long misses, int extents, long bytes) {}
+
+    private record ExtentKey(String query, long stepMillis) {}
+
+    /**
+     * @param persistedEndMillis end of the copy of this extent on disk, or {@link #NOT_PERSISTED}
+     */
+    private record Extent(long startMillis, long endMillis, QueryResult result, long bytes, long persistedEndMillis) {}
+
+    /**
+     * Return the [start, end] window at the given step, reusing the cached extent where possible.
+     */
+    public QueryResult fetch(String promql, long startMillis, long endMillis, long stepMillis,
+                             RangeFetcher fetcher) throws IOException {
+        if (!config.extent().enabled()) {
+            return fetcher.fetch(startMillis, endMillis);
+        }
+
+        ExtentKey key = new ExtentKey(QueryKey.normalize(promql), stepMillis);
+        Extent extent = lookup(key);
+
+        // Samples close to "now" may still change, so never reuse them
+        long freshLimit = System.currentTimeMillis() - config.extent().maxFreshness().toMillis();
+        long reusableEnd = extent == null ? Long.MIN_VALUE : Math.min(Math.min(extent.endMillis(), freshLimit), endMillis);
+
+        QueryResult result;
+        long persistedEnd = NOT_PERSISTED;
+        if (extent == null
+                || extent.startMillis() > startMillis
+                || reusableEnd < startMillis
+                || Math.floorMod(startMillis - extent.startMillis(), stepMillis) != 0) {
+            misses.incrementAndGet();
+            result = fetcher.fetch(startMillis, endMillis);
+        } else {
+            // Align the reusable end to the evaluation grid of this window
+            reusableEnd = startMillis + Math.floorDiv(reusableEnd - startMillis, stepMillis) * stepMillis;
+            QueryResult cached = Matrices.slice(extent.result(), startMillis, reusableEnd);
+            if (reusableEnd >= endMillis) {
+                fullHits.incrementAndGet();
+                return cached;
+            }
+            partialHits.incrementAndGet();
+            LOG.debugf("Extent hit for %s, fetching %d ms tail", key.query(), endMillis - reusableEnd);
+            QueryResult tail = fetcher.fetch(reusableEnd + stepMillis, endMillis);
+            result = Matrices.concat(List.of(cached, tail));
+            // The disk copy still covers the reused part
+            persistedEnd = extent.persistedEndMillis();
+        }
+
+        store(key, new Extent(startMillis, endMillis, result, key.query().length() * 2L + result.estimatedBytes(),
+            persistedEnd));
+        return result;
+    }
+
+    /**
+     * Cached samples of the query for [start, end] at the given step, or null unless a
+     * cached extent covers the whole window. Nothing is fetched.
+     */
+    public QueryResult peek(String promql, long startMillis, long endMillis, long stepMillis) {
+        if (!config.extent().enabled()) {
+            return null;
+        }
+        Extent extent = lookup(new ExtentKey(QueryKey.normalize(promql), stepMillis));
+        if (extent == null
+                || extent.startMillis() > startMillis
+                || extent.endMillis() < endMillis
+                || Math.floorMod(startMillis - extent.startMillis(), stepMillis) != 0) {
+            return null;
+        }
+        return Matrices.slice(extent.result(), startMillis, endMillis);
+    }
+
+    public synchronized void clear() {
+        extents.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Write extents not yet on disk to the disk tier before the process exits.
+     */
+    void onShutdown(@Observes ShutdownEvent event) {
+        if (!diskResultStore.isEnabled()) {
+            return;
+        }
+        List<Map.Entry<ExtentKey, Extent>> pending;
+        synchronized (this) {
+            pending = new ArrayList<>();
+            for (Map.Entry<ExtentKey, Extent> entry : extents.entrySet()) {
+                if (entry.getValue().persistedEndMillis() < entry.getValue().endMillis()) {
+                    pending.add(Map.entry(entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+        pending.forEach(entry -> persist(entry.getKey(), entry.getValue(), true));
+        LOG.infof("Wrote %d range extents to the disk cache", pending.size());
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(fullHits.get(), partialHits.get(), misses.get(), extents.size(), bytes);
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private Extent lookup(ExtentKey key) {
+        Extent extent = lookupInMemory(key);
+        if (extent != null || !diskResultStore.isEnabled()) {
+            return extent;
+        }
+        // Decode outside the lock; a concurrent load of the same extent is harmless
+        DiskResultStore.Entry entry = diskResultStore.get(diskKey(key));
+        if (entry == null) {
+            return null;
+        }
+        LOG.debugf("Loaded extent of %s from disk", key.query());
+        extent = new Extent(entry.startMillis(), entry.endMillis(), entry.result(),
+            key.query().length() * 2L + entry.result().estimatedBytes(), entry.endMillis());
+        store(key, extent);
+        return extent;
+    }
+
+    private synchronized Extent lookupInMemory(ExtentKey key) {
+        return extents.get(key);
+    }
+
+    private void store(ExtentKey key, Extent extent) {
+        // Evicted extents are written back to disk after the lock is released
+        for (Map.Entry<ExtentKey, Extent> evicted : storeInMemory(key, extent)) {
+            persist(evicted.getKey(), evicted.getValue(), false);
+        }
+    }
+
+    private synchronized List<Map.Entry<ExtentKey, Extent>> storeInMemory(ExtentKey key, Extent extent) {
+        long maxBytes = config.extent().maxBytes();
+        if (!Matrices.MATRIX.equals(extent.result().resultType()) || extent.bytes() > maxBytes) {
+            return List.of(Map.entry(key, extent));
+        }
+        Extent previous = extents.put(key, extent);
+        if (previous != null) {
+            bytes -= previous.bytes();
+        }
+        bytes += extent.bytes();
+
+        List<Map.Entry<ExtentKey, Extent>> evicted = new ArrayList<>();
+        Iterator<Map.Entry<ExtentKey, Extent>> it = extents.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<ExtentKey, Extent> eldest = it.next();
+            bytes -= eldest.getValue().bytes();
+            evicted.add(Map.entry(eldest.getKey(), eldest.getValue()));
+            it.remove();
+        }
+        return evicted;
+    }
+
+    /**
+     * Write the extent to the disk tier, leaving out samples that were still fresh when fetched.
+     * Skipped while the disk copy misses less than {@link #REWRITE_FRACTION} of the extent;
+     * on shutdown anything newer than the disk copy is written.
+     */
+    private void persist(ExtentKey key, Extent extent, boolean shutdown) {
+        if (!diskResultStore.isEnabled()
+                || !Matrices.MATRIX.equals(extent.result().resultType())) {
+            return;
+        }
+        long freshLimit = System.currentTimeMillis() - config.extent().maxFreshness().toMillis();
+        long end = Math.min(extent.endMillis(), freshLimit);
+        end = extent.startMillis() + Math.floorDiv(end - extent.startMillis(), key.stepMillis()) * key.stepMillis();
+        if (end < extent.startMillis() || end <= extent.persistedEndMillis()) {
+            return;
+        }
+        QueryResult slice = Matrices.slice(extent.result(), extent.startMillis(), end);
+        if (shutdown) {
+            diskResultStore.put(diskKey(key), extent.startMillis(), end, slice);
+            return;
+        }
+        long missing = extent.persistedEndMillis() == NOT_PERSISTED
+            ? Long.MAX_VALUE
+            : end - Math.max(extent.persistedEndMillis(), extent.startMillis());
+        if (missing < (extent.endMillis() - extent.startMillis()) * REWRITE_FRACTION) {
+            return;
+        }
+        diskResultStore.putAsync(diskKey(key), extent.startMillis(), end, slice);
+    }
+
+    private static String diskKey(ExtentKey key) {
+        return "extent|" + key.stepMillis() + "|" + key.query();
+    }
+}
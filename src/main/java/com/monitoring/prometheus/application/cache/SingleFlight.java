@@ -0,0 +1,142 @@
+package com.monitoring.prometheus.application.cache;
+
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.infrastructure.config.QueryConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces identical concurrent requests to Prometheus.
+ *
+ * The first caller for a key runs the request; callers arriving while it is in
+ * flight wait for and share its decoded result (or its failure) instead of
+ * sending their own. A failure caused by the leader being cancelled is not
+ * shared: the waiters retry. Nothing is kept once the request completes; that is the
+ * job of {@link QueryResultCache}.
+ */
+@ApplicationScoped
+public class SingleFlight {
+
+    private static final Logger LOG = Logger.getLogger(SingleFlight.class);
+
+    @Inject
+    QueryConfig config;
+
+    private final ConcurrentHashMap<QueryKey, CompletableFuture<QueryResult>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Requests sent to Prometheus and calls that shared an in-flight request instead.
+     */
+    public record Stats(long executed, long coalesced, int inFlight) {}
+
+    /**
+     * Run the loader for the key, or join the identical request already in flight.
+     * If that request fails because its caller was interrupted or cancelled (e.g. by a
+     * federation timeout), waiting callers retry and one of them becomes the new leader.
+     */
+    public QueryResult execute(QueryKey key, Callable<QueryResult> loader) throws Exception {
+        if (!config.coalesce().enabled()) {
+            return loader.call();
+        }
+
+        while (true) {
+            CompletableFuture<QueryResult> flight = new CompletableFuture<>();
+            CompletableFuture<QueryResult> existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                coalesced.incrementAndGet();
+                LOG.debugf("Coalesced request for %s", key.query());
+                try {
+                    return await(existing);
+                } catch (LeaderCancelledException e) {
+                    LOG.debugf("Request for %s was cancelled by its caller, retrying", key.query());
+                    continue;
+                }
+            }
+
+            executed.incrementAndGet();
+            QueryResult result;
+            try {
+                result = loader.call();
+            } catch (Exception e) {
+                // Removed before completing, so retrying waiters do not find the failed flight again
+                inFlight.remove(key, flight);
+                flight.completeExceptionally(e);
+                throw e;
+            } catch (Error e) {
+                inFlight.remove(key, flight);
+                flight.completeExceptionally(e);
+                throw e;
+            }
+            inFlight.remove(key, flight);
+            flight.complete(result);
+            return result;
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(executed.get(), coalesced.get(), inFlight.size());
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private static QueryResult await(CompletableFuture<QueryResult> flight) throws Exception {
+        try {
+            return flight.get();
+        } catch (CancellationException e) {
+            throw new LeaderCancelledException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isCancellation(cause)) {
+                throw new LeaderCancelledException();
+            }
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Whether the failure only reflects that the leading caller stopped waiting, not the request itself.
+     */
+    private static boolean isCancellation(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof InterruptedException || t instanceof CancellationException
+                    || t instanceof ClosedByInterruptException
+                    || (t instanceof InterruptedIOException && !(t instanceof SocketTimeoutException))) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The request joined was abandoned by its leader; the waiter should retry.
+     */
+    private static final class LeaderCancelledException extends Exception {
+        LeaderCancelledException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.monitoring.prometheus.application.format;
+
+import com.monitoring.prometheus.application.query.ResultBudget;
+import com.monitoring.prometheus.domain.model.Labels;
+import com.monitoring.prometheus.domain.model.Series;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Columnar CSV/TSV: a label table with one row per series, followed by
+ * one row per sample referencing the series by index, so label sets are never repeated.
+ * Without a point budget all samples are written.
+ */
+public class DelimitedQueryResultFormatter implements QueryResultFormatter {
+
+    static final DelimitedQueryResultFormatter CSV = new DelimitedQueryResultFormatter(',');
+    static final DelimitedQueryResultFormatter TSV = new DelimitedQueryResultFormatter('\t');
+
+    private final char delimiter;
+
+    DelimitedQueryResultFormatter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    @Override
+    public void format(ResultBudget.Budgeted budgeted, int maxPoints, StringBuilder sb) {
+        List<Series> series = budgeted.result().series();
+        boolean matrix = "matrix".equals(budgeted.result().resultType());
+
+        // Shared header: union of label names in first-seen order
+        Set<String> names = new LinkedHashSet<>();
+        for (Series s : series) {
+            for (int i = 0; i < s.labels().size(); i++) {
+                names.add(s.labels().name(i));
+            }
+        }
+        List<String> columns = new ArrayList<>(names);
+
+        sb.append("# resultType: ").append(budgeted.result().resultType()).append('\n');
+        if (budgeted.truncated()) {
+            sb.append("# truncated: ").append(series.size()).append(" of ").append(budgeted.totalSeries())
+                .append(" series (top by ").append(budgeted.ranking().name().toLowerCase()).append(")\n");
+        }
+
+        sb.append("series");
+        for (String column : columns) {
+            sb.append(delimiter);
+            appendField(sb, column);
+        }
+        sb.append('\n');
+        for (int id = 0; id < series.size(); id++) {
+            Labels labels = series.get(id).labels();
+            sb.append(id);
+            for (String column : columns) {
+                sb.append(delimiter);
+                String value = labels.get(column);
+                if (value != null) {
+                    appendField(sb, value);
+                }
+            }
+            sb.append('\n');
+        }
+
+        sb.append('\n').append("series").append(delimiter).append("timestamp").append(delimiter).append("value\n");
+        for (int id = 0; id < series.size(); id++) {
+            Series shown = matrix && maxPoints > 0 ? ResultBudget.lttb(series.get(id), maxPoints) : series.get(id);
+            for (int i = 0; i < shown.size(); i++) {
+                sb.append(id).append(delimiter);
+                Samples.appendTimestamp(sb, shown.timestampAt(i)).append(delimiter);
+                Samples.appendValue(sb, shown.valueAt(i)).append('\n');
+            }
+        }
+    }
+
+    private void appendField(StringBuilder sb, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,130 @@
+package com.monitoring.prometheus.application.format;
+
+import com.monitoring.prometheus.application.query.ResultBudget;
+import com.monitoring.prometheus.domain.model.Labels;
+import com.monitoring.prometheus.domain.model.Series;
+import com.monitoring.prometheus.domain.model.SeriesStats;
+
+/**
+ * Compact JSON in the shape of the Prometheus API result, with per-series
+ * statistics and truncation info. Without a point budget all samples are written.
+ */
+public class JsonQueryResultFormatter implements QueryResultFormatter {
+
+    static final JsonQueryResultFormatter INSTANCE = new JsonQueryResultFormatter();
+
+    private static final String WARNINGS_FIELD = ",\"warnings\":[";
+
+    @Override
+    public void format(ResultBudget.Budgeted budgeted, int maxPoints, StringBuilder sb) {
+        boolean matrix = "matrix".equals(budgeted.result().resultType());
+
+        sb.append("{\"resultType\":");
+        appendString(sb, budgeted.result().resultType());
+        sb.append(",\"totalSeries\":").append(budgeted.totalSeries())
+            .append(",\"truncated\":").append(budgeted.truncated())
+            .append(",\"result\":[");
+
+        boolean first = true;
+        for (Series series : budgeted.result().series()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append("{\"metric\":");
+            appendLabels(sb, series.labels());
+
+            if (!matrix) {
+                if (!series.isEmpty()) {
+                    sb.append(",\"value\":");
+                    appendSample(sb, series.timestampAt(0), series.valueAt(0));
+                }
+            } else {
+                SeriesStats stats = SeriesStats.of(series);
+                sb.append(",\"stats\":{\"count\":").append(stats.count()).append(",\"min\":");
+                appendString(sb, Samples.formatValue(stats.min()));
+                sb.append(",\"max\":");
+                appendString(sb, Samples.formatValue(stats.max()));
+                sb.append(",\"avg\":");
+                appendString(sb, Samples.formatValue(stats.avg()));
+                sb.append("},\"values\":[");
+
+                Series shown = maxPoints > 0 ? ResultBudget.lttb(series, maxPoints) : series;
+                for (int i = 0; i < shown.size(); i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    appendSample(sb, shown.timestampAt(i), shown.valueAt(i));
+                }
+                sb.append(']');
+            }
+            sb.append('}');
+        }
+        sb.append("]}");
+    }
+
+    /**
+     * Add a warning to a rendered JSON object, in a "warnings" array after the result.
+     * Output that is not a JSON object (e.g. an error message) gets the warning on its own line.
+     */
+    public static String withWarning(String json, String warning) {
+        String trimmed = json.stripTrailing();
+        if (!trimmed.startsWith("{") || !trimmed.endsWith("}")) {
+            return json + (json.endsWith("\n") ? "" : "\n") + warning + "\n";
+        }
+        StringBuilder sb = new StringBuilder(trimmed.length() + warning.length() + 16);
+        // Quotes inside strings are escaped, so this only matches the field itself
+        if (trimmed.lastIndexOf(WARNINGS_FIELD) >= 0 && trimmed.endsWith("]}")) {
+            sb.append(trimmed, 0, trimmed.length() - 2).append(',');
+        } else {
+            sb.append(trimmed, 0, trimmed.length() - 1).append(WARNINGS_FIELD);
+        }
+        appendString(sb, warning);
+        return sb.append("]}").toString();
+    }
+
+    private void appendSample(StringBuilder sb, long timestampMillis, double value) {
+        sb.append('[');
+        Samples.appendTimestamp(sb, timestampMillis).append(",\"");
+        Samples.appendValue(sb, value).append("\"]");
+    }
+
+    private void appendLabels(StringBuilder sb, Labels labels) {
+        sb.append('{');
+        for (int i = 0; i < labels.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendString(sb, labels.name(i));
+            sb.append(':');
+            appendString(sb, labels.value(i));
+        }
+        sb.append('}');
+    }
+
+    public static void appendString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,26 @@
+package com.monitoring.prometheus.application.format;
+
+/**
+ * Output formats of the query, queryRange and queryBatch tools.
+ */
+public enum OutputFormat {
+    /** Human-readable text, one block per series. */
+    TEXT,
+    /** Label table plus one row per sample, comma separated. */
+    CSV,
+    /** Same as CSV, tab separated. */
+    TSV,
+    /** Compact JSON in the shape of the Prometheus API. */
+    JSON;
+
+    public static OutputFormat parse(String value) {
+        if (value == null || value.isBlank()) {
+            return TEXT;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return TEXT;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.monitoring.prometheus.application.format;
+
+import com.monitoring.prometheus.application.query.ResultBudget;
+
+/**
+ * Renders a budgeted query result into the output buffer.
+ */
+public interface QueryResultFormatter {
+
+    /**
+     * @param budgeted  the result, already reduced to the series budget
+     * @param maxPoints points per range series; 0 lets the format choose
+     * @param out       buffer the output is appended to
+     */
+    void format(ResultBudget.Budgeted budgeted, int maxPoints, StringBuilder out);
+
+    static QueryResultFormatter of(OutputFormat format) {
+        return switch (format) {
+            case CSV -> DelimitedQueryResultFormatter.CSV;
+            case TSV -> DelimitedQueryResultFormatter.TSV;
+            case JSON -> JsonQueryResultFormatter.INSTANCE;
+            default -> TextQueryResultFormatter.INSTANCE;
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.monitoring.prometheus.application.format;
+
+import com.monitoring.prometheus.domain.model.Labels;
+
+/**
+ * Formatting of timestamps, sample values and label sets shared by the output formats.
+ */
+public final class Samples {
+
+    private Samples() {
+    }
+
+    /**
+     * Unix seconds, with milliseconds only when present, as in the Prometheus API.
+     */
+    public static StringBuilder appendTimestamp(StringBuilder sb, long timestampMillis) {
+        long seconds = Math.floorDiv(timestampMillis, 1000L);
+        long millis = Math.floorMod(timestampMillis, 1000L);
+        sb.append(seconds);
+        if (millis != 0) {
+            sb.append('.');
+            if (millis < 100) {
+                sb.append('0');
+            }
+            if (millis < 10) {
+                sb.append('0');
+            }
+            sb.append(millis);
+        }
+        return sb;
+    }
+
+    /**
+     * Sample value as Prometheus prints it: NaN, +Inf, -Inf, integers without a fraction.
+     */
+    public static StringBuilder appendValue(StringBuilder sb, double value) {
+        if (Double.isNaN(value)) {
+            return sb.append("NaN");
+        }
+        if (Double.isInfinite(value)) {
+            return sb.append(value > 0 ? "+Inf" : "-Inf");
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return sb.append((long) value);
+        }
+        return sb.append(value);
+    }
+
+    public static String formatValue(double value) {
+        return appendValue(new StringBuilder(), value).toString();
+    }
+
+    public static StringBuilder appendLabels(StringBuilder sb, Labels labels) {
+        sb.append('{');
+        for (int i = 0; i < labels.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(labels.name(i)).append("=\"").append(labels.value(i)).append('"');
+        }
+        return sb.append('}');
+    }
+}
@@ -0,0 +1,67 @@
+package com.monitoring.prometheus.application.format;
+
+import com.monitoring.prometheus.application.query.ResultBudget;
+import com.monitoring.prometheus.domain.model.Series;
+import com.monitoring.prometheus.domain.model.SeriesStats;
+
+/**
+ * Human-readable text: one "Metric: ..." block per series.
+ * Range series show their statistics and either the downsampled points or the last 5 samples.
+ */
+public class TextQueryResultFormatter implements QueryResultFormatter {
+
+    static final TextQueryResultFormatter INSTANCE = new TextQueryResultFormatter();
+
+    private static final int TAIL_SAMPLES = 5;
+
+    @Override
+    public void format(ResultBudget.Budgeted budgeted, int maxPoints, StringBuilder sb) {
+        String resultType = budgeted.result().resultType();
+        boolean matrix = "matrix".equals(resultType);
+        sb.append("Result Type: ").append(resultType).append("\n\n");
+
+        for (Series series : budgeted.result().series()) {
+            sb.append("Metric: ");
+            Samples.appendLabels(sb, series.labels()).append("\n");
+
+            if (!matrix && !series.isEmpty()) {
+                sb.append("Value: ");
+                Samples.appendValue(sb, series.valueAt(0)).append("\n");
+            } else if (!series.isEmpty()) {
+                appendSeriesSummary(sb, series, maxPoints);
+            }
+            sb.append("\n");
+        }
+
+        if (budgeted.truncated()) {
+            sb.append("Truncated: showing ").append(budgeted.result().series().size())
+                .append(" of ").append(budgeted.totalSeries()).append(" series (top by ")
+                .append(budgeted.ranking().name().toLowerCase()).append(")\n");
+        }
+    }
+
+    private void appendSeriesSummary(StringBuilder sb, Series series, int maxPoints) {
+        SeriesStats stats = SeriesStats.of(series);
+        sb.append("Values: ").append(stats.count()).append(" samples (min: ");
+        Samples.appendValue(sb, stats.min()).append(", max: ");
+        Samples.appendValue(sb, stats.max()).append(", avg: ");
+        Samples.appendValue(sb, stats.avg()).append(")\n");
+
+        Series shown = series;
+        int from = 0;
+        if (maxPoints > 0) {
+            shown = ResultBudget.lttb(series, maxPoints);
+            if (shown.size() < series.size()) {
+                sb.append("Downsampled to ").append(shown.size()).append(" points:\n");
+            }
+        } else {
+            // Show last 5 values
+            from = Math.max(0, series.size() - TAIL_SAMPLES);
+        }
+        for (int i = from; i < shown.size(); i++) {
+            sb.append("  ");
+            Samples.appendTimestamp(sb, shown.timestampAt(i)).append(": ");
+            Samples.appendValue(sb, shown.valueAt(i)).append("\n");
+        }
+    }
+}
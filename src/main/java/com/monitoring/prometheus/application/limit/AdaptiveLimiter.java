@@ -0,0 +1,153 @@
+package com.monitoring.prometheus.application.limit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit adapted with AIMD from observed latency.
+ *
+ * Each fast response raises the limit by 1/limit (about +1 per round of requests),
+ * each slow or failed one multiplies it by {@link #BACKOFF}. Calls over the limit wait
+ * in a bounded queue and are rejected when it is full or their wait times out.
+ */
+public final class AdaptiveLimiter {
+
+    static final double BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final long latencyThresholdNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long rejected;
+
+    /**
+     * Current state of the limiter.
+     */
+    public record Stats(String name, int limit, int inFlight, int queued, long rejected) {}
+
+    /**
+     * A granted slot; must be released exactly once.
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+
+        /**
+         * Release the slot, adapting the limit to the outcome.
+         *
+         * @param dropped true when the call failed in a way that suggests overload (timeout, 5xx, I/O)
+         */
+        public void release(boolean dropped) {
+            AdaptiveLimiter.this.release(System.nanoTime() - startNanos, dropped);
+        }
+
+        /**
+         * Release the slot without adapting the limit, for outcomes that say nothing
+         * about load (client errors, cancelled calls).
+         */
+        public void ignore() {
+            AdaptiveLimiter.this.release();
+        }
+    }
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                           Duration queueTimeout, Duration latencyThreshold) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Take a slot, waiting in the queue if the limit is reached.
+     *
+     * @throws LimitExceededException if the queue is full or the wait timed out
+     */
+    public Permit acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return new Permit();
+            }
+            if (queued >= maxQueue) {
+                throw reject("queue full");
+            }
+            queued++;
+            try {
+                long remaining = queueTimeoutNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        throw reject("timed out waiting for a slot");
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+            } finally {
+                queued--;
+            }
+            inFlight++;
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(name, (int) limit, inFlight, queued, rejected);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private void release(long latencyNanos, boolean dropped) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (dropped || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+            } else if (inFlight + 1 >= (int) limit / 2) {
+                // Only grow while the limit is actually being used
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private LimitExceededException reject(String reason) {
+        rejected++;
+        return new LimitExceededException(String.format(
+            "Prometheus is busy: %d of %d %s requests in flight (%s), try again shortly",
+            inFlight, (int) limit, name, reason));
+    }
+}
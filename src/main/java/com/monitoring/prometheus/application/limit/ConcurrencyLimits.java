@@ -0,0 +1,164 @@
+package com.monitoring.prometheus.application.limit;
+
+import com.monitoring.prometheus.infrastructure.client.PrometheusBackends;
+import com.monitoring.prometheus.infrastructure.client.PrometheusQueryException;
+import com.monitoring.prometheus.infrastructure.config.LimitConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Backpressure toward Prometheus: every forwarded request runs in a lane
+ * with its own adaptive concurrency limit, so a burst of range queries
+ * cannot starve cheap lookups and saturation fails fast instead of piling up.
+ *
+ * Each backend has its own lanes, so a slow federation backend only
+ * lowers its own limits.
+ */
+@ApplicationScoped
+public class ConcurrencyLimits {
+
+    /** Name of the default prometheus-api backend. */
+    public static final String DEFAULT_BACKEND = "default";
+
+    public enum Lane {
+        /** Instant queries and metadata lookups. */
+        CHEAP,
+        /** Range queries. */
+        EXPENSIVE
+    }
+
+    @Inject
+    LimitConfig config;
+
+    @Inject
+    PrometheusBackends prometheusBackends;
+
+    private Map<String, AdaptiveLimiter[]> limiters = Map.of();
+
+    @PostConstruct
+    void init() {
+        Map<String, AdaptiveLimiter[]> built = new LinkedHashMap<>();
+        built.put(DEFAULT_BACKEND, lanes(""));
+        for (String backend : prometheusBackends.names()) {
+            built.put(backend, lanes(backend + "/"));
+        }
+        limiters = built;
+    }
+
+    /**
+     * Run the call against the default Prometheus once the lane has a free slot.
+     *
+     * @throws LimitExceededException if the lane is saturated
+     */
+    public <T> T run(Lane lane, Callable<T> call) throws Exception {
+        return run(DEFAULT_BACKEND, lane, call);
+    }
+
+    /**
+     * Run the call against the named backend once its lane has a free slot.
+     *
+     * @throws LimitExceededException if the lane is saturated
+     */
+    public <T> T run(String backend, Lane lane, Callable<T> call) throws Exception {
+        if (!config.enabled()) {
+            return call.call();
+        }
+        AdaptiveLimiter[] lanes = limiters.getOrDefault(backend, limiters.get(DEFAULT_BACKEND));
+        AdaptiveLimiter.Permit permit = lanes[lane.ordinal()].acquire();
+        T result;
+        try {
+            result = call.call();
+        } catch (Exception e) {
+            if (isOverload(e)) {
+                permit.release(true);
+            } else {
+                permit.ignore();
+            }
+            throw e;
+        } catch (Error e) {
+            permit.ignore();
+            throw e;
+        }
+        permit.release(false);
+        return result;
+    }
+
+    /**
+     * Backends with limiters, the default one first.
+     */
+    public List<String> backends() {
+        return List.copyOf(limiters.keySet());
+    }
+
+    /**
+     * Stats of each lane of the backend, in {@link Lane} order.
+     */
+    public List<AdaptiveLimiter.Stats> stats(String backend) {
+        AdaptiveLimiter[] lanes = limiters.get(backend);
+        return List.of(lanes[0].stats(), lanes[1].stats());
+    }
+
+    /**
+     * Stats of each lane of the default backend, in {@link Lane} order.
+     */
+    public List<AdaptiveLimiter.Stats> stats() {
+        return stats(DEFAULT_BACKEND);
+    }
+
+    /**
+     * Whether a failure suggests Prometheus is overloaded: timeouts, connection errors,
+     * 5xx and 429. Client errors and cancelled calls say nothing about load.
+     */
+    static boolean isOverload(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause() == e ? null : e.getCause()) {
+            if (e instanceof InterruptedException || e instanceof CancellationException) {
+                return false;
+            }
+            if (e instanceof PrometheusQueryException query) {
+                return isOverloadStatus(query.httpStatus()) || "timeout".equals(query.errorType());
+            }
+            if (e instanceof WebApplicationException web) {
+                return web.getResponse() != null && isOverloadStatus(web.getResponse().getStatus());
+            }
+            if (e instanceof TimeoutException || e instanceof SocketTimeoutException) {
+                return true;
+            }
+            if (e instanceof SocketException) {
+                // Connection refused, reset or unreachable
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private static boolean isOverloadStatus(int status) {
+        return status >= 500 || status == 429;
+    }
+
+    private AdaptiveLimiter[] lanes(String prefix) {
+        return new AdaptiveLimiter[] {
+            limiter(prefix + "cheap", config.cheap()),
+            limiter(prefix + "expensive", config.expensive())
+        };
+    }
+
+    private static AdaptiveLimiter limiter(String name, LimitConfig.Lane lane) {
+        return new AdaptiveLimiter(name, lane.initialLimit(), lane.minLimit(), lane.maxLimit(),
+            lane.maxQueue(), lane.queueTimeout(), lane.latencyThreshold());
+    }
+}
@@ -0,0 +1,11 @@
+package com.monitoring.prometheus.application.limit;
+
+/**
+ * Thrown when a call is rejected because Prometheus is saturated.
+ */
+public class LimitExceededException extends RuntimeException {
+
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
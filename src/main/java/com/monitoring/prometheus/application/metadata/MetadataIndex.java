@@ -0,0 +1,185 @@
+package com.monitoring.prometheus.application.metadata;
+
+import com.monitoring.prometheus.application.limit.ConcurrencyLimits;
+import com.monitoring.prometheus.application.service.CompositeCalls;
+import com.monitoring.prometheus.infrastructure.client.PrometheusClient;
+import com.monitoring.prometheus.infrastructure.config.MetadataConfig;
+import com.monitoring.prometheus.infrastructure.dto.LabelsResponseDto;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.Logger;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of metric names, label names and label values, rebuilt in the
+ * background so that name lookups are answered locally instead of hitting /api/v1/labels.
+ * Index builds go through the cheap concurrency lane like any other metadata call.
+ */
+@ApplicationScoped
+public class MetadataIndex {
+
+    private static final Logger LOG = Logger.getLogger(MetadataIndex.class);
+    private static final String METRIC_NAME_LABEL = "__name__";
+    private static final int REFRESH_PARALLELISM = 8;
+
+    @Inject
+    @RestClient
+    PrometheusClient prometheusClient;
+
+    @Inject
+    CompositeCalls compositeCalls;
+
+    @Inject
+    ConcurrencyLimits concurrencyLimits;
+
+    @Inject
+    MetadataConfig config;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicBoolean backgroundRefresh = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    /**
+     * One consistent version of the index.
+     */
+    public record Snapshot(
+        NameIndex metrics,
+        NameIndex labels,
+        Map<String, NameIndex> labelValues,
+        Instant refreshedAt
+    ) {}
+
+    @Scheduled(every = "${prometheus.metadata.refresh-interval:5m}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledRefresh() {
+        // The first build happens at startup (StartupWarmup) or on first use
+        if (!config.enabled() || snapshot == null) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            LOG.warnf("Metadata index refresh failed: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Current index. Only the first use waits for a build; an index older than the refresh
+     * interval (e.g. because the scheduled refresh failed) is still answered while a
+     * background refresh replaces it.
+     */
+    public Snapshot current() throws Exception {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refreshLock.lock();
+            try {
+                // Another caller may have built it while we waited
+                if (snapshot == null) {
+                    refresh();
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+            return snapshot;
+        }
+        if (isStale(current)) {
+            refreshInBackground();
+        }
+        return current;
+    }
+
+    /**
+     * Values of a label: from the index when present, otherwise fetched on demand.
+     */
+    public NameIndex labelValues(String label) throws Exception {
+        NameIndex indexed = current().labelValues().get(label);
+        if (indexed != null && !indexed.truncated()) {
+            return indexed;
+        }
+        return NameIndex.of(fetchValues(label), Integer.MAX_VALUE);
+    }
+
+    public void refresh() throws Exception {
+        refreshLock.lock();
+        try {
+            long startNanos = System.nanoTime();
+            NameIndex metrics = NameIndex.of(fetchValues(METRIC_NAME_LABEL), config.maxMetrics());
+            NameIndex labels = NameIndex.of(
+                concurrencyLimits.run(ConcurrencyLimits.Lane.CHEAP, () -> data(prometheusClient.getLabels())),
+                Integer.MAX_VALUE);
+
+            List<String> indexed = new ArrayList<>();
+            for (String label : labels.search("", config.maxLabels()).names()) {
+                if (!METRIC_NAME_LABEL.equals(label)) {
+                    indexed.add(label);
+                }
+            }
+            List<Callable<NameIndex>> calls = new ArrayList<>(indexed.size());
+            for (String label : indexed) {
+                calls.add(() -> NameIndex.of(fetchValues(label), config.maxValuesPerLabel()));
+            }
+            List<CompositeCalls.Outcome<NameIndex>> outcomes = compositeCalls.invokeAllSettled(calls, REFRESH_PARALLELISM);
+
+            Map<String, NameIndex> labelValues = new HashMap<>();
+            for (int i = 0; i < indexed.size(); i++) {
+                if (outcomes.get(i).isSuccess()) {
+                    labelValues.put(indexed.get(i).intern(), outcomes.get(i).value());
+                }
+            }
+
+            snapshot = new Snapshot(metrics, labels, Map.copyOf(labelValues), Instant.now());
+            LOG.infof("Metadata index refreshed: %d metrics, %d labels in %d ms",
+                metrics.size(), labels.size(), (System.nanoTime() - startNanos) / 1_000_000);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private void refreshInBackground() {
+        if (!backgroundRefresh.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("metadata-refresh").start(() -> {
+            try {
+                if (isStale(snapshot)) {
+                    refresh();
+                }
+            } catch (Exception e) {
+                LOG.warnf("Metadata index refresh failed, serving the index of %s: %s",
+                    snapshot.refreshedAt(), e.getMessage());
+            } finally {
+                backgroundRefresh.set(false);
+            }
+        });
+    }
+
+    private boolean isStale(Snapshot current) {
+        return current == null || current.refreshedAt().plus(config.refreshInterval()).isBefore(Instant.now());
+    }
+
+    private List<String> fetchValues(String label) throws Exception {
+        return concurrencyLimits.run(ConcurrencyLimits.Lane.CHEAP, () -> data(prometheusClient.getLabelValues(label)));
+    }
+
+    private List<String> data(LabelsResponseDto response) {
+        if (response == null || !"success".equals(response.status())) {
+            throw new IllegalStateException(response == null ? "empty response"
+                : response.errorType() + " - " + response.error());
+        }
+        return response.data() != null ? response.data() : List.of();
+    }
+}
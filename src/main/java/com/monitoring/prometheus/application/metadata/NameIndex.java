@@ -0,0 +1,113 @@
+package com.monitoring.prometheus.application.metadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable sorted array of names supporting prefix and fuzzy lookup.
+ */
+public final class NameIndex {
+
+    public static final NameIndex EMPTY = new NameIndex(new String[0], false);
+
+    private final String[] names;
+    private final boolean truncated;
+
+    private NameIndex(String[] names, boolean truncated) {
+        this.names = names;
+        this.truncated = truncated;
+    }
+
+    /**
+     * Build an index of at most maxSize names; the rest are dropped and the index is marked truncated.
+     */
+    public static NameIndex of(Collection<String> values, int maxSize) {
+        String[] names = values.stream()
+            .filter(v -> v != null && !v.isEmpty())
+            .distinct()
+            .sorted()
+            .limit(Math.max(0, maxSize))
+            .map(String::intern)
+            .toArray(String[]::new);
+        return new NameIndex(names, values.size() > names.length);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public boolean truncated() {
+        return truncated;
+    }
+
+    /**
+     * Lookup result: the best matches and how many names matched in total.
+     */
+    public record Matches(List<String> names, int total, boolean fuzzy) {}
+
+    /**
+     * Names starting with the query; when there are none, case-insensitive substring
+     * matches, then subsequence matches (e.g. "nmab" finds "node_memory_MemAvailable_bytes").
+     */
+    public Matches search(String query, int limit) {
+        if (query == null || query.isEmpty()) {
+            return new Matches(Arrays.asList(names).subList(0, Math.min(limit, names.length)), names.length, false);
+        }
+
+        // Binary search for the prefix range
+        int from = lowerBound(query);
+        int to = from;
+        while (to < names.length && names[to].startsWith(query)) {
+            to++;
+        }
+        if (to > from) {
+            return new Matches(Arrays.asList(names).subList(from, Math.min(to, from + limit)), to - from, false);
+        }
+
+        String needle = query.toLowerCase();
+        List<String> substring = new ArrayList<>();
+        List<String> subsequence = new ArrayList<>();
+        for (String name : names) {
+            String candidate = name.toLowerCase();
+            if (candidate.contains(needle)) {
+                substring.add(name);
+            } else if (isSubsequence(needle, candidate)) {
+                subsequence.add(name);
+            }
+        }
+        substring.sort((a, b) -> Integer.compare(a.length(), b.length()));
+        subsequence.sort((a, b) -> Integer.compare(a.length(), b.length()));
+
+        List<String> matches = new ArrayList<>(Math.min(limit, substring.size() + subsequence.size()));
+        for (String name : substring) {
+            if (matches.size() == limit) {
+                break;
+            }
+            matches.add(name);
+        }
+        for (String name : subsequence) {
+            if (matches.size() == limit) {
+                break;
+            }
+            matches.add(name);
+        }
+        return new Matches(matches, substring.size() + subsequence.size(), true);
+    }
+
+    private int lowerBound(String key) {
+        int index = Arrays.binarySearch(names, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static boolean isSubsequence(String needle, String haystack) {
+        int j = 0;
+        for (int i = 0; i < haystack.length() && j < needle.length(); i++) {
+            if (haystack.charAt(i) == needle.charAt(j)) {
+                j++;
+            }
+        }
+        return j == needle.length();
+    }
+}
@@ -0,0 +1,46 @@
+package com.monitoring.prometheus.application.promql;
+
+import java.util.List;
+
+/**
+ * Syntax tree of the PromQL subset evaluated locally.
+ *
+ * Every node keeps its source text, so any subexpression can be looked up
+ * among cached query results.
+ */
+public sealed interface Expr {
+
+    String text();
+
+    record NumberLiteral(String text, double value) implements Expr {}
+
+    /**
+     * Instant vector selector such as {@code up{job="api"}}.
+     */
+    record Selector(String text) implements Expr {}
+
+    /**
+     * Range vector selector such as {@code http_requests_total[5m]}; only valid as a function argument.
+     *
+     * @param selector text of the instant selector without the range
+     */
+    record MatrixSelector(String text, String selector, long rangeMillis) implements Expr {}
+
+    record Call(String text, String function, List<Expr> args) implements Expr {}
+
+    /**
+     * Aggregation such as {@code sum by (job) (x)} or {@code topk(5, x)}.
+     *
+     * @param param    parameter of topk, bottomk and quantile; null otherwise
+     * @param grouping labels of the by or without clause
+     */
+    record Aggregate(String text, String op, Expr param, Expr expr, List<String> grouping, boolean without)
+        implements Expr {}
+
+    /**
+     * Arithmetic or comparison; returnBool is set for comparisons with the bool modifier.
+     */
+    record Binary(String text, String op, Expr lhs, Expr rhs, boolean returnBool) implements Expr {}
+
+    record Negation(String text, Expr expr) implements Expr {}
+}
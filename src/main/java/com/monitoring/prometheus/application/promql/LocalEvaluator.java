@@ -0,0 +1,547 @@
+package com.monitoring.prometheus.application.promql;
+
+import com.monitoring.prometheus.domain.model.Labels;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.domain.model.Series;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Evaluates a parsed expression over a fixed grid of timestamps, taking the
+ * data of each subexpression from a {@link Source} of cached results.
+ *
+ * Every node other than the root is first looked up as a whole; only when it
+ * is not cached is it composed from its children. Selectors that are not
+ * cached make the expression unevaluable. Range functions are only answered
+ * when their whole call is cached: the cache holds samples at the evaluation
+ * step rather than raw scrapes, and computing rate or the _over_time functions
+ * from those would not match Prometheus.
+ */
+public final class LocalEvaluator {
+
+    /**
+     * Cached query results by expression text.
+     */
+    @FunctionalInterface
+    public interface Source {
+
+        /**
+         * Cached samples of the expression for [start, end] at the evaluation step,
+         * or null when not cached. Instant evaluation passes start == end.
+         */
+        QueryResult lookup(String promql, long startMillis, long endMillis);
+    }
+
+    private static final String NAME = "__name__";
+
+    private final Source source;
+    private final long startMillis;
+    private final long stepMillis;
+    private final int points;
+    private final Set<String> used = new LinkedHashSet<>();
+
+    private LocalEvaluator(Source source, long startMillis, long endMillis, long stepMillis) {
+        this.source = source;
+        this.startMillis = startMillis;
+        this.stepMillis = stepMillis;
+        this.points = stepMillis > 0 ? (int) ((endMillis - startMillis) / stepMillis) + 1 : 1;
+    }
+
+    /**
+     * Evaluate over [start, end] at the step, returning a matrix.
+     *
+     * @throws UnsupportedQueryException if the expression cannot be answered from the source
+     */
+    public static Evaluation range(Expr expr, Source source, long startMillis, long endMillis, long stepMillis) {
+        LocalEvaluator evaluator = new LocalEvaluator(source, startMillis, endMillis, stepMillis);
+        return new Evaluation(evaluator.toResult(evaluator.compose(expr), "matrix"), List.copyOf(evaluator.used));
+    }
+
+    /**
+     * Evaluate at a single time, returning a vector or scalar.
+     *
+     * @throws UnsupportedQueryException if the expression cannot be answered from the source
+     */
+    public static Evaluation instant(Expr expr, Source source, long timeMillis) {
+        LocalEvaluator evaluator = new LocalEvaluator(source, timeMillis, timeMillis, 0);
+        return new Evaluation(evaluator.toResult(evaluator.compose(expr), "vector"), List.copyOf(evaluator.used));
+    }
+
+    /**
+     * @param sources text of the cached expressions the result was computed from
+     */
+    public record Evaluation(QueryResult result, List<String> sources) {}
+
+    // =========================================================================
+    // Values
+    // =========================================================================
+
+    private sealed interface Value {}
+
+    private record Scalar(double[] values) implements Value {}
+
+    private record Vector(List<Row> rows) implements Value {}
+
+    /**
+     * One series on the grid; absent points are marked in present.
+     */
+    private record Row(Labels labels, double[] values, boolean[] present) {}
+
+    // =========================================================================
+    // Evaluation
+    // =========================================================================
+
+    private Value eval(Expr expr) {
+        if (!(expr instanceof Expr.NumberLiteral)) {
+            QueryResult cached = source.lookup(expr.text(), startMillis, gridEnd());
+            if (cached != null) {
+                used.add(expr.text());
+                return fromResult(cached, startMillis, points);
+            }
+        }
+        return compose(expr);
+    }
+
+    private Value compose(Expr expr) {
+        return switch (expr) {
+            case Expr.NumberLiteral n -> constant(n.value());
+            case Expr.Selector s -> throw new UnsupportedQueryException("not cached: " + s.text());
+            case Expr.MatrixSelector m -> throw new UnsupportedQueryException("range vector outside a function: " + m.text());
+            case Expr.Negation n -> binary("*", constant(-1), eval(n.expr()), false);
+            case Expr.Binary b -> binary(b.op(), eval(b.lhs()), eval(b.rhs()), b.returnBool());
+            case Expr.Aggregate a -> aggregate(a);
+            case Expr.Call c -> call(c);
+        };
+    }
+
+    private Value call(Expr.Call call) {
+        String function = call.function();
+        List<Expr> args = call.args();
+        return switch (function) {
+            case "abs" -> map(args, 1, Math::abs);
+            case "ceil" -> map(args, 1, Math::ceil);
+            case "floor" -> map(args, 1, Math::floor);
+            case "round" -> {
+                if (args.size() != 1) {
+                    throw new UnsupportedQueryException("round with a precision argument");
+                }
+                yield map(args, 1, v -> Math.floor(v + 0.5));
+            }
+            case "sqrt" -> map(args, 1, Math::sqrt);
+            case "exp" -> map(args, 1, Math::exp);
+            case "ln" -> map(args, 1, Math::log);
+            case "log2" -> map(args, 1, v -> Math.log(v) / Math.log(2));
+            case "log10" -> map(args, 1, Math::log10);
+            case "clamp_min" -> clamp(args, true);
+            case "clamp_max" -> clamp(args, false);
+            case "time" -> {
+                double[] values = new double[points];
+                for (int i = 0; i < points; i++) {
+                    values[i] = timeAt(i) / 1000.0;
+                }
+                yield new Scalar(values);
+            }
+            default -> throw new UnsupportedQueryException("function not supported locally: " + function);
+        };
+    }
+
+    private Value map(List<Expr> args, int arity, DoubleUnaryOperator op) {
+        if (args.size() != arity) {
+            throw new UnsupportedQueryException("wrong number of arguments");
+        }
+        Vector vector = requireVector(eval(args.get(0)));
+        List<Row> rows = new ArrayList<>(vector.rows().size());
+        for (Row row : vector.rows()) {
+            double[] values = new double[points];
+            for (int i = 0; i < points; i++) {
+                values[i] = row.present()[i] ? op.applyAsDouble(row.values()[i]) : 0;
+            }
+            rows.add(new Row(withoutName(row.labels()), values, row.present()));
+        }
+        return new Vector(rows);
+    }
+
+    private Value clamp(List<Expr> args, boolean min) {
+        if (args.size() != 2 || !(args.get(1) instanceof Expr.NumberLiteral bound)) {
+            throw new UnsupportedQueryException("clamp needs a literal bound");
+        }
+        double limit = bound.value();
+        return map(args.subList(0, 1), 1, v -> min ? Math.max(v, limit) : Math.min(v, limit));
+    }
+
+    private Value binary(String op, Value lhs, Value rhs, boolean returnBool) {
+        boolean comparison = PromqlParser.isComparison(op);
+        if (lhs instanceof Scalar l && rhs instanceof Scalar r) {
+            if (comparison && !returnBool) {
+                throw new UnsupportedQueryException("comparisons between scalars must use bool");
+            }
+            double[] values = new double[points];
+            for (int i = 0; i < points; i++) {
+                values[i] = apply(op, l.values()[i], r.values()[i]);
+            }
+            return new Scalar(values);
+        }
+        if (lhs instanceof Vector l && rhs instanceof Scalar r) {
+            return vectorScalar(op, l, r, false, returnBool);
+        }
+        if (lhs instanceof Scalar l && rhs instanceof Vector r) {
+            return vectorScalar(op, r, l, true, returnBool);
+        }
+        return vectorVector(op, (Vector) lhs, (Vector) rhs, returnBool);
+    }
+
+    private Value vectorScalar(String op, Vector vector, Scalar scalar, boolean swap, boolean returnBool) {
+        boolean comparison = PromqlParser.isComparison(op);
+        List<Row> rows = new ArrayList<>(vector.rows().size());
+        for (Row row : vector.rows()) {
+            double[] values = new double[points];
+            boolean[] present = new boolean[points];
+            boolean any = false;
+            for (int i = 0; i < points; i++) {
+                if (!row.present()[i]) {
+                    continue;
+                }
+                double v = row.values()[i];
+                double s = scalar.values()[i];
+                double result = swap ? apply(op, s, v) : apply(op, v, s);
+                if (comparison && !returnBool) {
+                    // Filter: keep the vector sample where the comparison holds
+                    if (result == 0) {
+                        continue;
+                    }
+                    result = v;
+                }
+                values[i] = result;
+                present[i] = true;
+                any = true;
+            }
+            if (any) {
+                Labels labels = comparison && !returnBool ? row.labels() : withoutName(row.labels());
+                rows.add(new Row(labels, values, present));
+            }
+        }
+        return new Vector(rows);
+    }
+
+    /**
+     * One-to-one matching on all labels except the metric name.
+     */
+    private Value vectorVector(String op, Vector lhs, Vector rhs, boolean returnBool) {
+        boolean comparison = PromqlParser.isComparison(op);
+        Map<Labels, Row> right = new HashMap<>();
+        for (Row row : rhs.rows()) {
+            if (right.put(withoutName(row.labels()), row) != null) {
+                throw new UnsupportedQueryException("many-to-many matching on the right-hand side");
+            }
+        }
+        Set<Labels> seen = new HashSet<>();
+        List<Row> rows = new ArrayList<>();
+        for (Row row : lhs.rows()) {
+            Labels signature = withoutName(row.labels());
+            Row match = right.get(signature);
+            if (match == null) {
+                continue;
+            }
+            if (!seen.add(signature)) {
+                throw new UnsupportedQueryException("many-to-many matching on the left-hand side");
+            }
+            double[] values = new double[points];
+            boolean[] present = new boolean[points];
+            boolean any = false;
+            for (int i = 0; i < points; i++) {
+                if (!row.present()[i] || !match.present()[i]) {
+                    continue;
+                }
+                double result = apply(op, row.values()[i], match.values()[i]);
+                if (comparison && !returnBool) {
+                    if (result == 0) {
+                        continue;
+                    }
+                    result = row.values()[i];
+                }
+                values[i] = result;
+                present[i] = true;
+                any = true;
+            }
+            if (any) {
+                rows.add(new Row(comparison && !returnBool ? row.labels() : signature, values, present));
+            }
+        }
+        return new Vector(rows);
+    }
+
+    private static double apply(String op, double a, double b) {
+        return switch (op) {
+            case "+" -> a + b;
+            case "-" -> a - b;
+            case "*" -> a * b;
+            case "/" -> a / b;
+            case "%" -> a % b;
+            case "^" -> Math.pow(a, b);
+            case "==" -> a == b ? 1 : 0;
+            case "!=" -> a != b ? 1 : 0;
+            case ">" -> a > b ? 1 : 0;
+            case "<" -> a < b ? 1 : 0;
+            case ">=" -> a >= b ? 1 : 0;
+            case "<=" -> a <= b ? 1 : 0;
+            default -> throw new UnsupportedQueryException("operator not supported locally: " + op);
+        };
+    }
+
+    private Value aggregate(Expr.Aggregate aggregate) {
+        Vector input = requireVector(eval(aggregate.expr()));
+        double[] param = null;
+        if (aggregate.param() != null) {
+            if (!(eval(aggregate.param()) instanceof Scalar scalar)) {
+                throw new UnsupportedQueryException(aggregate.op() + " needs a scalar parameter");
+            }
+            param = scalar.values();
+        }
+
+        Map<Labels, List<Row>> groups = new LinkedHashMap<>();
+        for (Row row : input.rows()) {
+            groups.computeIfAbsent(groupLabels(row.labels(), aggregate), k -> new ArrayList<>()).add(row);
+        }
+
+        boolean selecting = "topk".equals(aggregate.op()) || "bottomk".equals(aggregate.op());
+        List<Row> rows = new ArrayList<>();
+        for (Map.Entry<Labels, List<Row>> group : groups.entrySet()) {
+            if (selecting) {
+                rows.addAll(select(group.getValue(), param, "topk".equals(aggregate.op())));
+                continue;
+            }
+            double[] values = new double[points];
+            boolean[] present = new boolean[points];
+            boolean any = false;
+            double[] samples = new double[group.getValue().size()];
+            for (int i = 0; i < points; i++) {
+                int count = 0;
+                for (Row row : group.getValue()) {
+                    if (row.present()[i]) {
+                        samples[count++] = row.values()[i];
+                    }
+                }
+                if (count == 0) {
+                    continue;
+                }
+                values[i] = reduce(aggregate.op(), samples, count, param != null ? param[i] : 0);
+                present[i] = true;
+                any = true;
+            }
+            if (any) {
+                rows.add(new Row(group.getKey(), values, present));
+            }
+        }
+        return new Vector(rows);
+    }
+
+    private static double reduce(String op, double[] samples, int count, double param) {
+        switch (op) {
+            case "sum" -> {
+                double sum = 0;
+                for (int k = 0; k < count; k++) {
+                    sum += samples[k];
+                }
+                return sum;
+            }
+            case "min", "max" -> {
+                double result = samples[0];
+                for (int k = 1; k < count; k++) {
+                    result = "min".equals(op) ? Math.min(result, samples[k]) : Math.max(result, samples[k]);
+                }
+                return result;
+            }
+            case "count" -> {
+                return count;
+            }
+            case "group" -> {
+                return 1;
+            }
+            case "quantile" -> {
+                return quantile(param, Arrays.copyOf(samples, count));
+            }
+            default -> {
+                // avg, stddev and stdvar from one Welford pass
+                double mean = 0;
+                double m2 = 0;
+                for (int k = 0; k < count; k++) {
+                    double delta = samples[k] - mean;
+                    mean += delta / (k + 1);
+                    m2 += delta * (samples[k] - mean);
+                }
+                return switch (op) {
+                    case "avg" -> mean;
+                    case "stdvar" -> m2 / count;
+                    default -> Math.sqrt(m2 / count);
+                };
+            }
+        }
+    }
+
+    /**
+     * topk and bottomk: the k highest or lowest samples of the group at each point, keeping their labels.
+     */
+    private List<Row> select(List<Row> group, double[] k, boolean top) {
+        Map<Row, Row> selected = new LinkedHashMap<>();
+        List<Row> candidates = new ArrayList<>(group.size());
+        for (int i = 0; i < points; i++) {
+            int limit = (int) k[i];
+            if (limit <= 0) {
+                continue;
+            }
+            final int point = i;
+            candidates.clear();
+            for (Row row : group) {
+                if (row.present()[point]) {
+                    candidates.add(row);
+                }
+            }
+            Comparator<Row> order = Comparator.comparingDouble(row -> row.values()[point]);
+            candidates.sort(top ? order.reversed() : order);
+            for (Row row : candidates.subList(0, Math.min(limit, candidates.size()))) {
+                Row out = selected.computeIfAbsent(row,
+                    r -> new Row(r.labels(), new double[points], new boolean[points]));
+                out.values()[point] = row.values()[point];
+                out.present()[point] = true;
+            }
+        }
+        return new ArrayList<>(selected.values());
+    }
+
+    private static Labels groupLabels(Labels labels, Expr.Aggregate aggregate) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < labels.size(); i++) {
+            String name = labels.name(i);
+            boolean listed = aggregate.grouping().contains(name);
+            if (aggregate.without() ? !listed && !NAME.equals(name) : listed) {
+                map.put(name, labels.value(i));
+            }
+        }
+        return Labels.of(map);
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private Scalar constant(double value) {
+        double[] values = new double[points];
+        Arrays.fill(values, value);
+        return new Scalar(values);
+    }
+
+    private static Vector requireVector(Value value) {
+        if (!(value instanceof Vector vector)) {
+            throw new UnsupportedQueryException("expected an instant vector");
+        }
+        return vector;
+    }
+
+    /**
+     * Place the samples of a cached result on a grid of the given size starting at from.
+     */
+    private Value fromResult(QueryResult result, long from, int size) {
+        if ("scalar".equals(result.resultType())) {
+            double value = result.series().isEmpty() || result.series().get(0).isEmpty()
+                ? Double.NaN
+                : result.series().get(0).valueAt(0);
+            double[] values = new double[size];
+            Arrays.fill(values, value);
+            return new Scalar(values);
+        }
+        List<Row> rows = new ArrayList<>(result.series().size());
+        for (Series series : result.series()) {
+            double[] values = new double[size];
+            boolean[] present = new boolean[size];
+            for (int k = 0; k < series.size(); k++) {
+                int index = gridIndex(series.timestampAt(k), from, size);
+                if (index >= 0) {
+                    values[index] = series.valueAt(k);
+                    present[index] = true;
+                }
+            }
+            rows.add(new Row(series.labels(), values, present));
+        }
+        return new Vector(rows);
+    }
+
+    private int gridIndex(long timestamp, long from, int size) {
+        if (stepMillis <= 0) {
+            // Instant results carry one sample per series
+            return 0;
+        }
+        long offset = timestamp - from;
+        if (offset < 0 || offset % stepMillis != 0 || offset / stepMillis >= size) {
+            return -1;
+        }
+        return (int) (offset / stepMillis);
+    }
+
+    private QueryResult toResult(Value value, String resultType) {
+        if (value instanceof Scalar scalar) {
+            Series.Builder builder = new Series.Builder(Labels.EMPTY, points);
+            for (int i = 0; i < points; i++) {
+                builder.add(timeAt(i), scalar.values()[i]);
+            }
+            return new QueryResult(stepMillis > 0 ? resultType : "scalar", List.of(builder.build()));
+        }
+        List<Series> series = new ArrayList<>();
+        for (Row row : ((Vector) value).rows()) {
+            Series.Builder builder = new Series.Builder(row.labels(), points);
+            for (int i = 0; i < points; i++) {
+                if (row.present()[i]) {
+                    builder.add(timeAt(i), row.values()[i]);
+                }
+            }
+            if (builder.size() > 0) {
+                series.add(builder.build());
+            }
+        }
+        return new QueryResult(resultType, series);
+    }
+
+    private static Labels withoutName(Labels labels) {
+        if (labels.get(NAME) == null) {
+            return labels;
+        }
+        Map<String, String> map = labels.asMap();
+        map.remove(NAME);
+        return Labels.of(map);
+    }
+
+    private static double quantile(double phi, double[] values) {
+        if (Double.isNaN(phi)) {
+            return Double.NaN;
+        }
+        if (phi < 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        if (phi > 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        Arrays.sort(values);
+        double rank = phi * (values.length - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = Math.min(lower + 1, values.length - 1);
+        double weight = rank - lower;
+        return values[lower] * (1 - weight) + values[upper] * weight;
+    }
+
+    private long timeAt(int i) {
+        return startMillis + i * stepMillis;
+    }
+
+    private long gridEnd() {
+        return timeAt(points - 1);
+    }
+}
@@ -0,0 +1,77 @@
+package com.monitoring.prometheus.application.promql;
+
+import com.monitoring.prometheus.application.cache.QueryKey;
+import com.monitoring.prometheus.application.cache.QueryResultCache;
+import com.monitoring.prometheus.application.cache.RangeExtentCache;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.infrastructure.config.QueryConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Answers queries locally when they can be composed from results already in
+ * the query and range extent caches, e.g. {@code sum(rate(x[5m]))} after
+ * {@code rate(x[5m])} was fetched, or {@code a / b} after both sides were.
+ *
+ * Anything outside the supported subset or not fully cached returns empty and
+ * is sent to Prometheus as usual.
+ */
+@ApplicationScoped
+public class LocalQueryEngine {
+
+    private static final Logger LOG = Logger.getLogger(LocalQueryEngine.class);
+
+    @Inject
+    QueryResultCache queryResultCache;
+
+    @Inject
+    RangeExtentCache rangeExtentCache;
+
+    @Inject
+    QueryConfig queryConfig;
+
+    /**
+     * Evaluate a range query over the step-aligned window from cached results.
+     */
+    public Optional<LocalEvaluator.Evaluation> evaluateRange(String promql, long startMillis, long endMillis,
+                                                             long stepMillis) {
+        if (!queryConfig.local().enabled()) {
+            return Optional.empty();
+        }
+        return evaluate(promql, expr -> LocalEvaluator.range(expr, (text, from, to) -> {
+            QueryResult cached = queryResultCache.lookup(QueryKey.range(text, from, to, stepMillis));
+            return cached != null ? cached : rangeExtentCache.peek(text, from, to, stepMillis);
+        }, startMillis, endMillis, stepMillis));
+    }
+
+    /**
+     * Evaluate an instant query at the aligned time from cached results.
+     */
+    public Optional<LocalEvaluator.Evaluation> evaluateInstant(String promql, long timeMillis) {
+        if (!queryConfig.local().enabled()) {
+            return Optional.empty();
+        }
+        return evaluate(promql, expr -> LocalEvaluator.instant(expr,
+            (text, from, to) -> queryResultCache.lookup(QueryKey.instant(text, from)), timeMillis));
+    }
+
+    private Optional<LocalEvaluator.Evaluation> evaluate(String promql,
+                                                         Function<Expr, LocalEvaluator.Evaluation> evaluation) {
+        try {
+            LocalEvaluator.Evaluation result = evaluation.apply(PromqlParser.parse(promql));
+            if (result.sources().isEmpty()) {
+                // Constant expressions are cheap for Prometheus and keep its exact semantics
+                return Optional.empty();
+            }
+            LOG.debugf("Evaluated %s locally from %s", promql, result.sources());
+            return Optional.of(result);
+        } catch (UnsupportedQueryException e) {
+            LOG.debugf("Not evaluated locally (%s): %s", e.getMessage(), promql);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.monitoring.prometheus.application.promql;
+
+import com.monitoring.prometheus.application.query.PromDurations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Recursive-descent parser for the locally evaluated PromQL subset: selectors,
+ * number literals, arithmetic and comparison operators, aggregations and
+ * function calls. Set operators, vector matching modifiers, subqueries,
+ * strings and the @ modifier are rejected with {@link UnsupportedQueryException}.
+ */
+public final class PromqlParser {
+
+    private static final Set<String> AGGREGATIONS = Set.of(
+        "sum", "avg", "min", "max", "count", "group", "stddev", "stdvar", "topk", "bottomk", "quantile");
+
+    private static final Set<String> PARAMETERIZED = Set.of("topk", "bottomk", "quantile");
+
+    private static final Set<String> UNSUPPORTED_KEYWORDS = Set.of(
+        "and", "or", "unless", "atan2", "on", "ignoring", "group_left", "group_right", "count_values",
+        "limitk", "limit_ratio");
+
+    private final String source;
+    private int pos;
+
+    private PromqlParser(String source) {
+        this.source = source;
+    }
+
+    /**
+     * @throws UnsupportedQueryException if the expression is outside the supported subset
+     */
+    public static Expr parse(String promql) {
+        if (promql == null || promql.isBlank()) {
+            throw new UnsupportedQueryException("empty expression");
+        }
+        PromqlParser parser = new PromqlParser(promql);
+        Expr expr = parser.parseBinary(0);
+        parser.skipWhitespace();
+        if (parser.pos < promql.length()) {
+            throw new UnsupportedQueryException("unexpected input at " + parser.pos);
+        }
+        return expr;
+    }
+
+    // =========================================================================
+    // Grammar
+    // =========================================================================
+
+    private Expr parseBinary(int minPrecedence) {
+        int start = skipWhitespace();
+        Expr lhs = parseUnary();
+        while (true) {
+            skipWhitespace();
+            int mark = pos;
+            String op = readOperator();
+            if (op == null) {
+                return lhs;
+            }
+            int precedence = precedence(op);
+            if (precedence < minPrecedence) {
+                pos = mark;
+                return lhs;
+            }
+            boolean returnBool = false;
+            if (isComparison(op)) {
+                skipWhitespace();
+                if (peekWord("bool")) {
+                    pos += 4;
+                    returnBool = true;
+                }
+            }
+            rejectMatchingModifiers();
+            // ^ is right-associative, everything else left-associative
+            Expr rhs = parseBinary("^".equals(op) ? precedence : precedence + 1);
+            lhs = new Expr.Binary(text(start), op, lhs, rhs, returnBool);
+        }
+    }
+
+    private Expr parseUnary() {
+        int start = skipWhitespace();
+        if (peek() == '-' || peek() == '+') {
+            boolean negate = peek() == '-';
+            pos++;
+            // Unary minus binds weaker than ^: -2^2 is -4
+            Expr operand = parseBinary(precedence("^"));
+            return negate ? new Expr.Negation(text(start), operand) : operand;
+        }
+        return parsePrimary();
+    }
+
+    private Expr parsePrimary() {
+        int start = skipWhitespace();
+        char c = peek();
+        if (c == '(') {
+            pos++;
+            Expr inner = parseBinary(0);
+            expect(')');
+            return inner;
+        }
+        if (c == '{') {
+            skipBalanced('{', '}');
+            return parseSelectorSuffix(start);
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return parseNumber(start);
+        }
+        if (isIdentifierStart(c)) {
+            String identifier = readIdentifier();
+            String lower = identifier.toLowerCase(Locale.ROOT);
+            if ("inf".equals(lower) || "nan".equals(lower)) {
+                return new Expr.NumberLiteral(text(start), "inf".equals(lower) ? Double.POSITIVE_INFINITY : Double.NaN);
+            }
+            if (UNSUPPORTED_KEYWORDS.contains(lower)) {
+                throw new UnsupportedQueryException("unsupported: " + identifier);
+            }
+            if (AGGREGATIONS.contains(lower)) {
+                return parseAggregation(start, lower);
+            }
+            skipWhitespace();
+            if (peek() == '(') {
+                return parseCall(start, identifier);
+            }
+            if (peek() == '{') {
+                skipBalanced('{', '}');
+            }
+            return parseSelectorSuffix(start);
+        }
+        throw new UnsupportedQueryException("unexpected input at " + pos);
+    }
+
+    private Expr parseSelectorSuffix(int start) {
+        int selectorEnd = pos;
+        skipWhitespace();
+        if (peek() == '[') {
+            int close = source.indexOf(']', pos);
+            if (close < 0) {
+                throw new UnsupportedQueryException("unclosed range");
+            }
+            String range = source.substring(pos + 1, close).trim();
+            if (range.contains(":")) {
+                throw new UnsupportedQueryException("subqueries are not supported");
+            }
+            Duration duration = PromDurations.parse(range, null);
+            if (duration == null) {
+                throw new UnsupportedQueryException("invalid range: " + range);
+            }
+            pos = close + 1;
+            rejectModifiers();
+            return new Expr.MatrixSelector(text(start), source.substring(start, selectorEnd), duration.toMillis());
+        }
+        pos = selectorEnd;
+        rejectModifiers();
+        return new Expr.Selector(text(start));
+    }
+
+    private Expr parseAggregation(int start, String op) {
+        List<String> grouping = List.of();
+        boolean without = false;
+        skipWhitespace();
+        if (peekWord("by") || peekWord("without")) {
+            without = peekWord("without");
+            pos += without ? 7 : 2;
+            grouping = parseLabelList();
+        }
+        expect('(');
+        Expr param = null;
+        if (PARAMETERIZED.contains(op)) {
+            param = parseBinary(0);
+            expect(',');
+        }
+        Expr expr = parseBinary(0);
+        expect(')');
+        skipWhitespace();
+        if (grouping.isEmpty() && !without && (peekWord("by") || peekWord("without"))) {
+            without = peekWord("without");
+            pos += without ? 7 : 2;
+            grouping = parseLabelList();
+        }
+        return new Expr.Aggregate(text(start), op, param, expr, grouping, without);
+    }
+
+    private Expr parseCall(int start, String function) {
+        expect('(');
+        List<Expr> args = new ArrayList<>();
+        skipWhitespace();
+        if (peek() != ')') {
+            args.add(parseBinary(0));
+            skipWhitespace();
+            while (peek() == ',') {
+                pos++;
+                args.add(parseBinary(0));
+                skipWhitespace();
+            }
+        }
+        expect(')');
+        return new Expr.Call(text(start), function, List.copyOf(args));
+    }
+
+    private List<String> parseLabelList() {
+        expect('(');
+        List<String> labels = new ArrayList<>();
+        skipWhitespace();
+        while (peek() != ')') {
+            if (!isIdentifierStart(peek())) {
+                throw new UnsupportedQueryException("invalid label list at " + pos);
+            }
+            labels.add(readIdentifier());
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+                skipWhitespace();
+            }
+        }
+        expect(')');
+        return List.copyOf(labels);
+    }
+
+    private Expr parseNumber(int start) {
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            boolean exponentSign = (c == '+' || c == '-') && pos > start
+                && (source.charAt(pos - 1) == 'e' || source.charAt(pos - 1) == 'E')
+                && !source.substring(start, pos).startsWith("0x");
+            if (!Character.isLetterOrDigit(c) && c != '.' && !exponentSign) {
+                break;
+            }
+            pos++;
+        }
+        String literal = text(start);
+        try {
+            double value = literal.startsWith("0x") || literal.startsWith("0X")
+                ? Long.decode(literal)
+                : Double.parseDouble(literal);
+            return new Expr.NumberLiteral(literal, value);
+        } catch (NumberFormatException e) {
+            Duration duration = PromDurations.parse(literal, null);
+            if (duration == null) {
+                throw new UnsupportedQueryException("invalid number: " + literal);
+            }
+            return new Expr.NumberLiteral(literal, duration.toMillis() / 1000.0);
+        }
+    }
+
+    // =========================================================================
+    // Lexing Helpers
+    // =========================================================================
+
+    private String readOperator() {
+        if (pos >= source.length()) {
+            return null;
+        }
+        for (String op : List.of("==", "!=", ">=", "<=", ">", "<", "+", "-", "*", "/", "%", "^")) {
+            if (source.startsWith(op, pos)) {
+                pos += op.length();
+                return op;
+            }
+        }
+        if (isIdentifierStart(peek())) {
+            int mark = pos;
+            String word = readIdentifier().toLowerCase(Locale.ROOT);
+            if (UNSUPPORTED_KEYWORDS.contains(word)) {
+                throw new UnsupportedQueryException("unsupported operator: " + word);
+            }
+            pos = mark;
+        }
+        return null;
+    }
+
+    private static int precedence(String op) {
+        return switch (op) {
+            case "^" -> 4;
+            case "*", "/", "%" -> 3;
+            case "+", "-" -> 2;
+            default -> 1;
+        };
+    }
+
+    static boolean isComparison(String op) {
+        return precedence(op) == 1;
+    }
+
+    private void rejectMatchingModifiers() {
+        skipWhitespace();
+        for (String modifier : List.of("on", "ignoring", "group_left", "group_right")) {
+            if (peekWord(modifier)) {
+                throw new UnsupportedQueryException("vector matching modifiers are not supported");
+            }
+        }
+    }
+
+    private void rejectModifiers() {
+        int mark = pos;
+        skipWhitespace();
+        if (peekWord("offset") || peek() == '@') {
+            throw new UnsupportedQueryException("offset and @ modifiers are not supported");
+        }
+        pos = mark;
+    }
+
+    private boolean peekWord(String word) {
+        int end = pos + word.length();
+        return source.regionMatches(true, pos, word, 0, word.length())
+            && (end >= source.length() || !isIdentifierPart(source.charAt(end)));
+    }
+
+    private String readIdentifier() {
+        int start = pos;
+        while (pos < source.length() && isIdentifierPart(source.charAt(pos))) {
+            pos++;
+        }
+        return source.substring(start, pos);
+    }
+
+    private void skipBalanced(char open, char close) {
+        int depth = 0;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == '"' || c == '\'' || c == '`') {
+                skipString(c);
+                continue;
+            }
+            pos++;
+            if (c == open) {
+                depth++;
+            } else if (c == close && --depth == 0) {
+                return;
+            }
+        }
+        throw new UnsupportedQueryException("unbalanced " + open);
+    }
+
+    private void skipString(char quote) {
+        pos++;
+        while (pos < source.length()) {
+            char c = source.charAt(pos++);
+            if (c == '\\' && quote != '`') {
+                pos++;
+            } else if (c == quote) {
+                return;
+            }
+        }
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (peek() != c) {
+            throw new UnsupportedQueryException("expected '" + c + "' at " + pos);
+        }
+        pos++;
+    }
+
+    private int skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private char peek() {
+        return pos < source.length() ? source.charAt(pos) : '\0';
+    }
+
+    private String text(int start) {
+        return source.substring(start, pos).trim();
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_' || c == ':';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == ':';
+    }
+}
@@ -0,0 +1,12 @@
+package com.monitoring.prometheus.application.promql;
+
+/**
+ * Thrown when an expression is outside the locally evaluated subset or its
+ * data is not cached; the query then goes to Prometheus.
+ */
+public class UnsupportedQueryException extends RuntimeException {
+
+    public UnsupportedQueryException(String message) {
+        super(message, null, false, false);
+    }
+}
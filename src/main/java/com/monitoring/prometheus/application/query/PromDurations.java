@@ -0,0 +1,70 @@
+package com.monitoring.prometheus.application.query;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parser and formatter for Prometheus duration strings such as "30s", "5m", "1h30m", "7d" or plain seconds.
+ */
+public final class PromDurations {
+
+    private static final Pattern PART = Pattern.compile("(\\d+)(ms|s|m|h|d|w|y)");
+
+    private PromDurations() {
+    }
+
+    /**
+     * Parse a duration, returning the fallback when the value is blank or malformed.
+     */
+    public static Duration parse(String value, Duration fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        String text = value.trim().toLowerCase();
+        try {
+            double seconds = Double.parseDouble(text);
+            return seconds > 0 ? Duration.ofMillis(Math.round(seconds * 1000)) : fallback;
+        } catch (NumberFormatException ignored) {
+            // Not plain seconds, fall through to unit parsing
+        }
+
+        Matcher matcher = PART.matcher(text);
+        long millis = 0;
+        int position = 0;
+        while (matcher.find() && matcher.start() == position) {
+            long amount = Long.parseLong(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "ms" -> amount;
+                case "s" -> amount * 1_000L;
+                case "m" -> amount * 60_000L;
+                case "h" -> amount * 3_600_000L;
+                case "d" -> amount * 86_400_000L;
+                case "w" -> amount * 604_800_000L;
+                default -> amount * 31_536_000_000L;
+            };
+            position = matcher.end();
+        }
+        return position == text.length() && millis > 0 ? Duration.ofMillis(millis) : fallback;
+    }
+
+    /**
+     * Format milliseconds as a compact duration, e.g. 5400000 as "1h30m".
+     */
+    public static String format(long millis) {
+        if (millis <= 0) {
+            return "0s";
+        }
+        StringBuilder sb = new StringBuilder();
+        long[] units = {86_400_000L, 3_600_000L, 60_000L, 1_000L, 1L};
+        String[] names = {"d", "h", "m", "s", "ms"};
+        long rest = millis;
+        for (int i = 0; i < units.length; i++) {
+            if (rest >= units[i]) {
+                sb.append(rest / units[i]).append(names[i]);
+                rest %= units[i];
+            }
+        }
+        return sb.toString();
+    }
+}
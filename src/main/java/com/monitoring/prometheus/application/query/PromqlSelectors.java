@@ -0,0 +1,184 @@
+package com.monitoring.prometheus.application.query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extracts the series selectors of a PromQL expression, e.g.
+ * {@code sum by (job) (rate(http_requests_total{code="500"}[5m]))} yields
+ * {@code http_requests_total{code="500"}}, and whether each one only reaches
+ * the result through an aggregation.
+ *
+ * This is a lexical scan, not a full parser: it skips strings, range and
+ * subquery brackets, function calls, grouping clauses and keywords, which
+ * is enough to look up the cardinality of each selector.
+ */
+public final class PromqlSelectors {
+
+    private static final Set<String> KEYWORDS = Set.of(
+        "and", "or", "unless", "bool", "offset", "atan2", "inf", "nan",
+        "sum", "min", "max", "avg", "group", "stddev", "stdvar", "count", "count_values",
+        "bottomk", "topk", "quantile", "limitk", "limit_ratio");
+
+    private static final Set<String> AGGREGATIONS = Set.of(
+        "sum", "min", "max", "avg", "group", "stddev", "stdvar", "count", "count_values",
+        "bottomk", "topk", "quantile", "limitk", "limit_ratio");
+
+    private static final Set<String> GROUPING = Set.of(
+        "by", "without", "on", "ignoring", "group_left", "group_right");
+
+    private PromqlSelectors() {
+    }
+
+    /**
+     * A selector and whether every occurrence of it is inside an aggregation.
+     */
+    public record Selector(String text, boolean aggregated) {}
+
+    /**
+     * Distinct selectors in order of appearance; empty when the expression has none.
+     */
+    public static List<String> extract(String promql) {
+        List<String> texts = new ArrayList<>();
+        for (Selector selector : scan(promql)) {
+            texts.add(selector.text());
+        }
+        return texts;
+    }
+
+    /**
+     * Distinct selectors in order of appearance, each marked aggregated when it only
+     * occurs inside the parentheses of an aggregation such as {@code sum by (job) (...)}.
+     */
+    public static List<Selector> scan(String promql) {
+        Map<String, Boolean> selectors = new LinkedHashMap<>();
+        if (promql == null) {
+            return List.of();
+        }
+        // One entry per open parenthesis: whether it is the argument list of an aggregation
+        Deque<Boolean> parens = new ArrayDeque<>();
+        int aggregationDepth = 0;
+        boolean aggregationPending = false;
+        int n = promql.length();
+        int i = 0;
+        while (i < n) {
+            char c = promql.charAt(i);
+            if (c == '"' || c == '\'' || c == '`') {
+                i = skipString(promql, i);
+            } else if (c == '#') {
+                // Comment to end of line
+                while (i < n && promql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '[') {
+                i = skipBalanced(promql, i, '[', ']');
+            } else if (c == '{') {
+                int end = skipBalanced(promql, i, '{', '}');
+                add(selectors, promql.substring(i, end), aggregationDepth > 0);
+                i = end;
+            } else if (c == '(') {
+                parens.push(aggregationPending);
+                if (aggregationPending) {
+                    aggregationDepth++;
+                    aggregationPending = false;
+                }
+                i++;
+            } else if (c == ')') {
+                if (!parens.isEmpty() && parens.pop()) {
+                    aggregationDepth--;
+                }
+                i++;
+            } else if (Character.isDigit(c) || c == '.' && i + 1 < n && Character.isDigit(promql.charAt(i + 1))) {
+                // Numbers and durations, including 1e3, 0x1f and 1h30m
+                while (i < n && (Character.isLetterOrDigit(promql.charAt(i)) || promql.charAt(i) == '.')) {
+                    i++;
+                }
+            } else if (isIdentifierStart(c)) {
+                int start = i;
+                while (i < n && isIdentifierPart(promql.charAt(i))) {
+                    i++;
+                }
+                String identifier = promql.substring(start, i);
+                int next = skipWhitespace(promql, i);
+                String lower = identifier.toLowerCase();
+                if (GROUPING.contains(lower)) {
+                    i = next < n && promql.charAt(next) == '(' ? skipBalanced(promql, next, '(', ')') : next;
+                } else if (next < n && promql.charAt(next) == '(' || KEYWORDS.contains(lower)) {
+                    // Function call or operator; its arguments are scanned as usual.
+                    // The grouping clause of an aggregation may come before its arguments.
+                    aggregationPending = AGGREGATIONS.contains(lower);
+                    i = next;
+                } else if (next < n && promql.charAt(next) == '{') {
+                    int end = skipBalanced(promql, next, '{', '}');
+                    add(selectors, identifier + promql.substring(next, end), aggregationDepth > 0);
+                    i = end;
+                } else {
+                    add(selectors, identifier, aggregationDepth > 0);
+                }
+            } else {
+                i++;
+            }
+        }
+        List<Selector> result = new ArrayList<>(selectors.size());
+        selectors.forEach((text, aggregated) -> result.add(new Selector(text, aggregated)));
+        return result;
+    }
+
+    private static void add(Map<String, Boolean> selectors, String text, boolean aggregated) {
+        selectors.merge(text, aggregated, Boolean::logicalAnd);
+    }
+
+    private static int skipString(String s, int i) {
+        char quote = s.charAt(i);
+        i++;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return s.length();
+    }
+
+    private static int skipBalanced(String s, int i, char open, char close) {
+        int depth = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\'' || c == '`') {
+                i = skipString(s, i);
+                continue;
+            }
+            if (c == open) {
+                depth++;
+            } else if (c == close && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return s.length();
+    }
+
+    private static int skipWhitespace(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_' || c == ':';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == ':';
+    }
+}
@@ -0,0 +1,233 @@
+package com.monitoring.prometheus.application.query;
+
+import com.monitoring.prometheus.application.limit.ConcurrencyLimits;
+import com.monitoring.prometheus.application.service.CompositeCalls;
+import com.monitoring.prometheus.infrastructure.client.DeadlineInputStream;
+import com.monitoring.prometheus.infrastructure.client.PrometheusClient;
+import com.monitoring.prometheus.infrastructure.config.QueryConfig;
+import com.monitoring.prometheus.infrastructure.decoder.SeriesCountDecoder;
+import com.monitoring.prometheus.infrastructure.metrics.ClientMetrics;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.Logger;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Pre-flight cost check of a query.
+ *
+ * The series matched by each selector are counted with /api/v1/series (capped at
+ * the budget, cached per selector and looked up once for concurrent callers), and
+ * points are series x range/step.
+ * Queries whose non-aggregated selectors exceed the series budget are rejected,
+ * since all of those series would be returned; aggregated ones only get a
+ * warning. Range queries over the point budget get a wider step, and short
+ * ranges are not estimated at all. Selectors whose count cannot be determined
+ * are ignored, so the guard never blocks a query because of its own failure.
+ */
+@ApplicationScoped
+public class QueryCostGuard {
+
+    private static final Logger LOG = Logger.getLogger(QueryCostGuard.class);
+    private static final int MAX_CACHED_SELECTORS = 10_000;
+    private static final long INSTANT_LOOKBACK_MILLIS = 300_000L;
+    private static final long[] NICE_STEPS = {
+        15_000L, 30_000L, 60_000L, 120_000L, 300_000L, 600_000L, 900_000L, 1_800_000L,
+        3_600_000L, 7_200_000L, 10_800_000L, 21_600_000L, 43_200_000L, 86_400_000L};
+
+    @Inject
+    @RestClient
+    PrometheusClient prometheusClient;
+
+    @Inject
+    SeriesCountDecoder seriesCountDecoder;
+
+    @Inject
+    ClientMetrics clientMetrics;
+
+    @Inject
+    ConcurrencyLimits concurrencyLimits;
+
+    @Inject
+    CompositeCalls compositeCalls;
+
+    @Inject
+    QueryConfig config;
+
+    @ConfigProperty(name = "com.monitoring.prometheus.infrastructure.client.PrometheusClient/getSeriesStream/Timeout/value",
+                    defaultValue = "15000")
+    long seriesTimeoutMillis;
+
+    private final ConcurrentHashMap<String, Cardinality> cardinalities = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Long>> lookupsInFlight = new ConcurrentHashMap<>();
+
+    private record Cardinality(long series, long expiresAtNanos) {}
+
+    /**
+     * Estimated cost of a query.
+     *
+     * @param series          series matched by all selectors, capped at the budget + 1
+     * @param pointsPerSeries points per series; 1 for instant queries
+     */
+    public record Estimate(long series, long pointsPerSeries) {
+        public long points() {
+            return series * pointsPerSeries;
+        }
+    }
+
+    /**
+     * Step to run the query with; note explains why it differs from the requested step
+     * or warns that the query is expensive.
+     */
+    public record Decision(long stepMillis, Estimate estimate, String note) {
+        public boolean adjusted() {
+            return note != null;
+        }
+    }
+
+    /**
+     * Check a query against the budget. Instant queries pass a zero step.
+     *
+     * @throws QueryRejectedException if its non-aggregated selectors match more series than allowed
+     */
+    public Decision check(String promql, long startMillis, long endMillis, long stepMillis) {
+        QueryConfig.Cost cost = config.cost();
+        if (!cost.enabled() || stepMillis > 0 && endMillis - startMillis < cost.minRange().toMillis()) {
+            return new Decision(stepMillis, null, null);
+        }
+
+        long[] counts = countSeries(promql, stepMillis > 0 ? startMillis : endMillis - INSTANT_LOOKBACK_MILLIS, endMillis);
+        long raw = counts[0];
+        long series = counts[0] + counts[1];
+        if (raw > cost.maxSeries()) {
+            throw new QueryRejectedException(String.format(
+                "selectors match more than %d series; add label matchers or aggregate to narrow the query",
+                cost.maxSeries()));
+        }
+        String warning = series > cost.maxSeries()
+            ? String.format("selectors match more than %d series before aggregation; the query may be slow",
+                cost.maxSeries())
+            : null;
+        if (stepMillis <= 0) {
+            return new Decision(stepMillis, new Estimate(series, 1), warning);
+        }
+
+        long range = Math.max(0, endMillis - startMillis);
+        long required = Math.max(stepMillis, ceilDiv(range, Math.max(1, cost.maxPointsPerSeries() - 1)));
+        if (series > 0) {
+            // series x (range / step + 1) must stay within maxPoints
+            long pointsPerSeries = cost.maxPoints() / series;
+            required = Math.max(required, pointsPerSeries < 2 ? range : ceilDiv(range, pointsPerSeries - 1));
+        }
+        if (required == stepMillis) {
+            return new Decision(stepMillis, new Estimate(series, range / stepMillis + 1), warning);
+        }
+
+        long widened = niceStep(required);
+        Estimate before = new Estimate(series, range / stepMillis + 1);
+        String note = String.format("step widened from %s to %s: %d series x %d points exceeds the query budget",
+            PromDurations.format(stepMillis), PromDurations.format(widened), series, before.pointsPerSeries());
+        if (warning != null) {
+            note += "; " + warning;
+        }
+        LOG.infof("Query %s: %s", promql, note);
+        return new Decision(widened, new Estimate(series, range / widened + 1), note);
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    /**
+     * Series matched by the non-aggregated and the aggregated selectors.
+     */
+    private long[] countSeries(String promql, long startMillis, long endMillis) {
+        long[] counts = new long[2];
+        List<PromqlSelectors.Selector> selectors = PromqlSelectors.scan(promql);
+        if (selectors.isEmpty()) {
+            return counts;
+        }
+        int limit = config.cost().maxSeries() + 1;
+        List<Callable<Long>> calls = new ArrayList<>(selectors.size());
+        for (PromqlSelectors.Selector selector : selectors) {
+            calls.add(() -> cardinality(selector.text(), startMillis, endMillis, limit));
+        }
+
+        List<CompositeCalls.Outcome<Long>> outcomes = compositeCalls.invokeAllSettled(calls);
+        for (int i = 0; i < selectors.size(); i++) {
+            CompositeCalls.Outcome<Long> outcome = outcomes.get(i);
+            if (outcome.isSuccess()) {
+                counts[selectors.get(i).aggregated() ? 1 : 0] += outcome.value();
+            } else {
+                LOG.debugf("Series count failed: %s", outcome.error().getMessage());
+            }
+        }
+        return counts;
+    }
+
+    private long cardinality(String selector, long startMillis, long endMillis, int limit) throws Exception {
+        Cardinality cached = cardinalities.get(selector);
+        if (cached != null && System.nanoTime() - cached.expiresAtNanos() < 0) {
+            return cached.series();
+        }
+
+        // Concurrent first calls share one /series request, the most expensive metadata call
+        CompletableFuture<Long> lookup = new CompletableFuture<>();
+        CompletableFuture<Long> existing = lookupsInFlight.putIfAbsent(selector, lookup);
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        try {
+            long series = concurrencyLimits.run(ConcurrencyLimits.Lane.CHEAP, () -> {
+                long startNanos = System.nanoTime();
+                try (InputStream body = DeadlineInputStream.of(prometheusClient.getSeriesStream(selector,
+                        Instant.ofEpochMilli(startMillis).toString(), Instant.ofEpochMilli(endMillis).toString(), limit),
+                        startNanos, Duration.ofMillis(seriesTimeoutMillis))) {
+                    return Math.min(clientMetrics.decode("series", body, seriesCountDecoder::count), limit);
+                }
+            });
+            if (cardinalities.size() >= MAX_CACHED_SELECTORS) {
+                cardinalities.clear();
+            }
+            cardinalities.put(selector, new Cardinality(series, System.nanoTime() + config.cost().cardinalityTtl().toNanos()));
+            lookup.complete(series);
+            return series;
+        } catch (Exception e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } catch (Error e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Cached before removal, so a caller arriving now finds the count
+            lookupsInFlight.remove(selector, lookup);
+        }
+    }
+
+    private static long niceStep(long millis) {
+        for (long step : NICE_STEPS) {
+            if (step >= millis) {
+                return step;
+            }
+        }
+        return ceilDiv(millis, NICE_STEPS[NICE_STEPS.length - 1]) * NICE_STEPS[NICE_STEPS.length - 1];
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+}
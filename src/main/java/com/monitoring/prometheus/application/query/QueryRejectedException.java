@@ -0,0 +1,11 @@
+package com.monitoring.prometheus.application.query;
+
+/**
+ * Thrown when a query is estimated to exceed the configured cost budget.
+ */
+public class QueryRejectedException extends RuntimeException {
+
+    public QueryRejectedException(String message) {
+        super(message);
+    }
+}
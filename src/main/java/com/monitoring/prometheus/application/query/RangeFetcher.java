@@ -0,0 +1,14 @@
+package com.monitoring.prometheus.application.query;
+
+import com.monitoring.prometheus.domain.model.QueryResult;
+
+import java.io.IOException;
+
+/**
+ * Fetches a step-aligned [start, end] window of a range query.
+ */
+@FunctionalInterface
+public interface RangeFetcher {
+
+    QueryResult fetch(long startMillis, long endMillis) throws IOException;
+}
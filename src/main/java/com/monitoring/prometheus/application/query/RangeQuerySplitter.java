@@ -0,0 +1,61 @@
+package com.monitoring.prometheus.application.query;
+
+import com.monitoring.prometheus.application.service.CompositeCalls;
+import com.monitoring.prometheus.domain.model.Matrices;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.infrastructure.config.QueryConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Splits long range queries into step-aligned sub-ranges, executes them
+ * concurrently on virtual threads and stitches the matrices back together.
+ *
+ * Each sub-range is a cheaper request for Prometheus and less likely to hit its query timeout.
+ */
+@ApplicationScoped
+public class RangeQuerySplitter {
+
+    private static final Logger LOG = Logger.getLogger(RangeQuerySplitter.class);
+
+    @Inject
+    QueryConfig config;
+
+    @Inject
+    CompositeCalls compositeCalls;
+
+    public QueryResult fetch(long startMillis, long endMillis, long stepMillis, RangeFetcher fetcher) throws IOException {
+        QueryConfig.Split split = config.split();
+        // Whole number of steps per piece, so every piece keeps the evaluation grid of the full range
+        long stepsPerPiece = Math.max(1, split.interval().toMillis() / stepMillis);
+        long pieceMillis = stepsPerPiece * stepMillis;
+
+        if (!split.enabled() || endMillis - startMillis < pieceMillis) {
+            return fetcher.fetch(startMillis, endMillis);
+        }
+
+        List<long[]> windows = new ArrayList<>();
+        for (long from = startMillis; from <= endMillis; from += pieceMillis) {
+            windows.add(new long[] {from, Math.min(from + pieceMillis - stepMillis, endMillis)});
+        }
+        LOG.debugf("Splitting range query into %d sub-ranges", windows.size());
+
+        List<Callable<QueryResult>> calls = new ArrayList<>(windows.size());
+        for (long[] window : windows) {
+            calls.add(() -> fetcher.fetch(window[0], window[1]));
+        }
+        try {
+            return Matrices.concat(compositeCalls.invokeAll(calls, split.maxParallelism()));
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Split range query failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.monitoring.prometheus.application.query;
+
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.domain.model.Series;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Bounds the size of a query result before it is formatted for the LLM:
+ * keeps the top-K series and downsamples each series to a target point count.
+ * A limit of zero or less disables that part of the budget.
+ */
+public final class ResultBudget {
+
+    /**
+     * How series are ranked when the series budget is exceeded.
+     */
+    public enum Ranking {
+        /** Highest last value first. */
+        VALUE,
+        /** Highest variance first, i.e. the most eventful series. */
+        VARIANCE;
+
+        public static Ranking parse(String value, Ranking fallback) {
+            if (value == null || value.isBlank()) {
+                return fallback;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return fallback;
+            }
+        }
+    }
+
+    /**
+     * A result reduced to the series budget, with what was cut.
+     * Series are downsampled with {@link #lttb} when rendered, so their statistics stay exact.
+     *
+     * @param result       the kept series
+     * @param totalSeries  number of series before truncation
+     * @param ranking      ranking used to pick the kept series
+     */
+    public record Budgeted(
+        QueryResult result,
+        int totalSeries,
+        Ranking ranking
+    ) {
+        public boolean truncated() {
+            return result.series().size() < totalSeries;
+        }
+    }
+
+    private ResultBudget() {
+    }
+
+    /**
+     * Keep at most maxSeries series; zero or less keeps all of them.
+     */
+    public static Budgeted apply(QueryResult result, int maxSeries, Ranking ranking) {
+        List<Series> series = result.series();
+        if (maxSeries > 0 && series.size() > maxSeries) {
+            series = topK(series, maxSeries, ranking);
+        }
+        return new Budgeted(new QueryResult(result.resultType(), series), result.series().size(), ranking);
+    }
+
+    /**
+     * Keep the k highest-ranked series, best first.
+     */
+    public static List<Series> topK(List<Series> series, int k, Ranking ranking) {
+        double[] scores = new double[series.size()];
+        Integer[] order = new Integer[series.size()];
+        for (int i = 0; i < scores.length; i++) {
+            Series s = series.get(i);
+            double score = ranking == Ranking.VARIANCE ? variance(s) : lastValue(s);
+            scores[i] = Double.isNaN(score) ? Double.NEGATIVE_INFINITY : score;
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> scores[i]).reversed());
+
+        List<Series> kept = new ArrayList<>(k);
+        for (int i = 0; i < k && i < order.length; i++) {
+            kept.add(series.get(order[i]));
+        }
+        return kept;
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets downsampling: keeps the first and last sample and,
+     * per bucket, the sample spanning the largest triangle, which preserves spikes and dips.
+     */
+    public static Series lttb(Series series, int threshold) {
+        int size = series.size();
+        if (threshold <= 0 || threshold >= size) {
+            return series;
+        }
+        if (threshold < 3) {
+            return lastN(series, threshold);
+        }
+
+        long[] ts = series.timestamps();
+        double[] vs = series.values();
+        Series.Builder out = new Series.Builder(series.labels(), threshold);
+        out.add(ts[0], vs[0]);
+
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int a = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third triangle vertex
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, size);
+            double avgT = 0;
+            double avgV = 0;
+            int avgCount = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                if (!Double.isNaN(vs[i])) {
+                    avgT += ts[i];
+                    avgV += vs[i];
+                    avgCount++;
+                }
+            }
+            if (avgCount > 0) {
+                avgT /= avgCount;
+                avgV /= avgCount;
+            } else {
+                avgT = ts[Math.min(nextStart, size - 1)];
+                avgV = vs[a];
+            }
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((ts[a] - avgT) * (vs[i] - vs[a]) - (ts[a] - ts[i]) * (avgV - vs[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            out.add(ts[chosen], vs[chosen]);
+            a = chosen;
+        }
+
+        out.add(ts[size - 1], vs[size - 1]);
+        return out.build();
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private static Series lastN(Series series, int n) {
+        int from = series.size() - n;
+        return new Series(series.labels(),
+            Arrays.copyOfRange(series.timestamps(), from, series.size()),
+            Arrays.copyOfRange(series.values(), from, series.size()));
+    }
+
+    private static double lastValue(Series series) {
+        for (int i = series.size() - 1; i >= 0; i--) {
+            if (!Double.isNaN(series.valueAt(i))) {
+                return series.valueAt(i);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double variance(Series series) {
+        // Welford's online algorithm
+        double mean = 0;
+        double m2 = 0;
+        int n = 0;
+        for (double v : series.values()) {
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                continue;
+            }
+            n++;
+            double delta = v - mean;
+            mean += delta / n;
+            m2 += delta * (v - mean);
+        }
+        return n < 2 ? 0 : m2 / (n - 1);
+    }
+}
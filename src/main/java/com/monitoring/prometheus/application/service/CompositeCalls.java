@@ -0,0 +1,177 @@
+package com.monitoring.prometheus.application.service;
+
+import io.opentelemetry.context.Context;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs independent backend calls concurrently on virtual threads, for tools
+ * that combine several Prometheus endpoints or sub-queries into one answer.
+ */
+@ApplicationScoped
+public class CompositeCalls {
+
+    /**
+     * Result of one call of a settled invocation: either a value or the error it failed with.
+     */
+    public record Outcome<T>(T value, Throwable error) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Run all calls concurrently and return their results in order.
+     * The first failure cancels the remaining calls and is rethrown.
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> calls) throws Exception {
+        return invokeAll(calls, calls.size());
+    }
+
+    /**
+     * Run all calls with at most maxParallelism in flight and return their results in order.
+     * The first failure cancels the remaining calls and is rethrown.
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> calls, int maxParallelism) throws Exception {
+        if (calls.size() == 1) {
+            return List.of(calls.get(0).call());
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futures = submit(executor, calls, maxParallelism);
+            List<T> results = new ArrayList<>(futures.size());
+            try {
+                for (Future<T> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                // Fail fast: stop the remaining calls before the executor waits on them
+                futures.forEach(f -> f.cancel(true));
+                throw unwrap(e);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Run all calls concurrently and return one outcome per call, in order.
+     * A failing call does not affect the others.
+     */
+    public <T> List<Outcome<T>> invokeAllSettled(List<? extends Callable<T>> calls) {
+        return invokeAllSettled(calls, calls.size());
+    }
+
+    /**
+     * Run all calls with at most maxParallelism in flight and return one outcome per call, in order.
+     * A failing call does not affect the others.
+     */
+    public <T> List<Outcome<T>> invokeAllSettled(List<? extends Callable<T>> calls, int maxParallelism) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futures = submit(executor, calls, maxParallelism);
+            List<Outcome<T>> outcomes = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                try {
+                    outcomes.add(new Outcome<>(future.get(), null));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.cancel(true);
+                    outcomes.add(new Outcome<>(null, e));
+                } catch (ExecutionException e) {
+                    outcomes.add(new Outcome<>(null, e.getCause()));
+                }
+            }
+            return outcomes;
+        }
+    }
+
+    /**
+     * Run all calls concurrently and return one outcome per call, in order.
+     * Calls still running when the timeout elapses are interrupted and fail with a {@link TimeoutException};
+     * the answer does not wait for them to stop.
+     */
+    public <T> List<Outcome<T>> invokeAllSettled(List<? extends Callable<T>> calls, Duration timeout) {
+        return invokeAllSettled(calls, Collections.nCopies(calls.size(), timeout));
+    }
+
+    /**
+     * Like {@link #invokeAllSettled(List, Duration)} with one timeout per call, e.g. per backend.
+     * Every timeout counts from the same start, so a slow call does not eat into the others' time.
+     */
+    public <T> List<Outcome<T>> invokeAllSettled(List<? extends Callable<T>> calls, List<Duration> timeouts) {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<T>> futures = submit(executor, calls, calls.size());
+            long startNanos = System.nanoTime();
+            List<Outcome<T>> outcomes = new ArrayList<>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                Future<T> future = futures.get(i);
+                Duration timeout = timeouts.get(i);
+                long remaining = startNanos + timeout.toNanos() - System.nanoTime();
+                try {
+                    outcomes.add(new Outcome<>(future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS), null));
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    outcomes.add(new Outcome<>(null, new TimeoutException("timed out after " + timeout.toMillis() + "ms")));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.cancel(true);
+                    outcomes.add(new Outcome<>(null, e));
+                } catch (ExecutionException e) {
+                    outcomes.add(new Outcome<>(null, e.getCause()));
+                }
+            }
+            return outcomes;
+        } finally {
+            // Unlike close(), does not wait for calls that ignore the interrupt
+            executor.shutdownNow();
+        }
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private <T> List<Future<T>> submit(ExecutorService executor, List<? extends Callable<T>> calls, int maxParallelism) {
+        Semaphore permits = new Semaphore(Math.max(1, maxParallelism));
+        List<Future<T>> futures = new ArrayList<>(calls.size());
+        for (Callable<T> call : calls) {
+            // Carry the trace context over so backend calls stay under the tool's span
+            Callable<T> traced = Context.current().wrap(call);
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return traced.call();
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        return futures;
+    }
+
+    private static Exception unwrap(Exception e) {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception exception) {
+            return exception;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return e;
+    }
+}
@@ -1,35 +1,307 @@
 package com.monitoring.prometheus.application.service;
 
+import com.monitoring.prometheus.application.analysis.AnalyzingSampleHandler;
+import com.monitoring.prometheus.application.analysis.AnomalyReport;
+import com.monitoring.prometheus.application.cache.QueryKey;
+import com.monitoring.prometheus.application.cache.QueryResultCache;
+import com.monitoring.prometheus.application.cache.RangeExtentCache;
+import com.monitoring.prometheus.application.cache.SingleFlight;
+import com.monitoring.prometheus.application.format.JsonQueryResultFormatter;
+import com.monitoring.prometheus.application.format.OutputFormat;
+import com.monitoring.prometheus.application.format.QueryResultFormatter;
+import com.monitoring.prometheus.application.limit.ConcurrencyLimits;
+import com.monitoring.prometheus.application.metadata.MetadataIndex;
+import com.monitoring.prometheus.application.metadata.NameIndex;
+import com.monitoring.prometheus.application.promql.LocalEvaluator;
+import com.monitoring.prometheus.application.promql.LocalQueryEngine;
+import com.monitoring.prometheus.application.query.PromDurations;
+import com.monitoring.prometheus.application.query.QueryCostGuard;
+import com.monitoring.prometheus.application.query.QueryRejectedException;
+import com.monitoring.prometheus.application.query.RangeQuerySplitter;
+import com.monitoring.prometheus.application.query.ResultBudget;
+import com.monitoring.prometheus.application.snapshot.StateSnapshots;
+import com.monitoring.prometheus.domain.model.Matrices;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.infrastructure.client.DeadlineInputStream;
+import com.monitoring.prometheus.infrastructure.client.PrometheusBackends;
 import com.monitoring.prometheus.infrastructure.client.PrometheusClient;
+import com.monitoring.prometheus.infrastructure.client.PrometheusQueryException;
+import com.monitoring.prometheus.infrastructure.config.CacheConfig;
+import com.monitoring.prometheus.infrastructure.config.FederationConfig;
+import com.monitoring.prometheus.infrastructure.config.QueryConfig;
+import com.monitoring.prometheus.infrastructure.decoder.QueryResponseDecoder;
+import com.monitoring.prometheus.infrastructure.decoder.TargetFilter;
+import com.monitoring.prometheus.infrastructure.decoder.TargetSet;
 import com.monitoring.prometheus.infrastructure.dto.*;
+import com.monitoring.prometheus.infrastructure.metrics.ClientMetrics;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.jboss.logging.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 @ApplicationScoped
 public class PrometheusService {
 
     private static final Logger LOG = Logger.getLogger(PrometheusService.class);
+    private static final Duration DEFAULT_RANGE = Duration.ofHours(1);
+    private static final Duration DEFAULT_STEP = Duration.ofMinutes(1);
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
 
     @Inject
     @RestClient
     PrometheusClient prometheusClient;
 
+    @Inject
+    QueryResponseDecoder queryResponseDecoder;
+
+    @Inject
+    ClientMetrics clientMetrics;
+
+    @Inject
+    QueryResultCache queryResultCache;
+
+    @Inject
+    RangeExtentCache rangeExtentCache;
+
+    @Inject
+    SingleFlight singleFlight;
+
+    @Inject
+    ConcurrencyLimits concurrencyLimits;
+
+    @Inject
+    RangeQuerySplitter rangeQuerySplitter;
+
+    @Inject
+    QueryCostGuard queryCostGuard;
+
+    @Inject
+    LocalQueryEngine localQueryEngine;
+
+    @Inject
+    CompositeCalls compositeCalls;
+
+    @Inject
+    MetadataIndex metadataIndex;
+
+    @Inject
+    StateSnapshots stateSnapshots;
+
+    @Inject
+    PrometheusBackends prometheusBackends;
+
+    @Inject
+    FederationConfig federationConfig;
+
+    @Inject
+    CacheConfig cacheConfig;
+
+    @Inject
+    QueryConfig queryConfig;
+
+    // Same settings as the @Timeout of the endpoints, applied to reading the streamed body
+    @ConfigProperty(name = "com.monitoring.prometheus.infrastructure.client.PrometheusClient/queryStream/Timeout/value",
+                    defaultValue = "30000")
+    long queryTimeoutMillis;
+
+    @ConfigProperty(name = "com.monitoring.prometheus.infrastructure.client.PrometheusClient/queryRangeStream/Timeout/value",
+                    defaultValue = "60000")
+    long queryRangeTimeoutMillis;
+
     /**
-     * Execute an instant PromQL query.
+     * Execute an instant PromQL query, returning at most maxSeries series (null for the configured budget)
+     * in the given output format (text, csv, tsv or json).
      */
-    public String query(String promql) {
+    @WithSpan
+    public String query(String promql, Integer maxSeries, String format, String backend) {
         LOG.infof("Executing PromQL query: %s", promql);
+        return instantQuery(promql, alignedNow(), maxSeries, format, backend);
+    }
+
+    /**
+     * Execute a range PromQL query within a result budget: at most maxSeries series,
+     * each downsampled to maxPoints points (null for the configured budget), in the given output format.
+     */
+    @WithSpan
+    public String queryRange(String promql, String duration, String step, Integer maxSeries, Integer maxPoints,
+                             String format, String backend) {
+        LOG.infof("Executing PromQL range query: %s, duration: %s, step: %s", promql, duration, step);
+        return rangeQuery(promql, duration, step, System.currentTimeMillis(), backend,
+            formatter(maxSeries, maxPoints, format), format);
+    }
+
+    /**
+     * Run a range query and report only its anomalies: series with level shifts or spikes,
+     * most severe first, with their statistics and event timestamps.
+     */
+    @WithSpan
+    public String analyzeRange(String promql, String duration, String step, Integer maxSeries, String backend) {
+        LOG.infof("Analyzing PromQL range query: %s, duration: %s, step: %s", promql, duration, step);
+        int seriesLimit = orDefault(maxSeries, queryConfig.analysis().maxSeries());
+        if (backend != null && !backend.isBlank()) {
+            return rangeQuery(promql, duration, step, System.currentTimeMillis(), backend,
+                result -> formatAnalysis(AnomalyReport.analyze(result, queryConfig.analysis().changeThreshold(),
+                    queryConfig.analysis().spikeThreshold()), "matrix".equals(result.resultType()), seriesLimit), null);
+        }
+        try {
+            long now = System.currentTimeMillis();
+            long requestedStep = PromDurations.parse(step, DEFAULT_STEP).toMillis();
+            long rangeMillis = PromDurations.parse(duration, DEFAULT_RANGE).toMillis();
+            QueryCostGuard.Decision decision = queryCostGuard.check(promql, now - rangeMillis, now, requestedStep);
+            long stepMillis = decision.stepMillis();
+            long end = Math.floorDiv(now, stepMillis) * stepMillis;
+            long start = end - rangeMillis;
+
+            // Analyze cached columns when present, otherwise while the response streams in
+            QueryResult cached = queryResultCache.lookup(QueryKey.range(promql, start, end, stepMillis));
+            if (cached == null) {
+                cached = rangeExtentCache.peek(promql, start, end, stepMillis);
+            }
+            String output;
+            if (cached != null) {
+                output = formatAnalysis(AnomalyReport.analyze(cached, queryConfig.analysis().changeThreshold(),
+                    queryConfig.analysis().spikeThreshold()), "matrix".equals(cached.resultType()), seriesLimit);
+            } else {
+                AnalyzingSampleHandler handler = streamRange(promql, start, end, stepMillis);
+                output = formatAnalysis(handler.report(), "matrix".equals(handler.resultType()), seriesLimit);
+            }
+            return decision.adjusted() ? appendNote(output, "Note: " + decision.note(), null) : output;
+        } catch (QueryRejectedException e) {
+            return "Query rejected: " + e.getMessage();
+        } catch (PrometheusQueryException e) {
+            return String.format("Query failed: %s - %s", e.errorType(), e.error());
+        } catch (Exception e) {
+            LOG.errorf("Error analyzing range query: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Execute several PromQL expressions concurrently against one time anchor and combine the answers,
+     * each under a header line. Expressions run as range queries when duration is set, as instant
+     * queries otherwise; a failing expression reports its error without affecting the others.
+     */
+    @WithSpan
+    public String queryBatch(List<String> queries, String duration, String step, Integer maxSeries,
+                             Integer maxPoints, String format, String backend) {
+        LOG.infof("Executing batch of %d PromQL queries, duration: %s", queries != null ? queries.size() : 0, duration);
+        if (queries == null || queries.isEmpty()) {
+            return "Error: no queries given";
+        }
+        int maxQueries = queryConfig.batch().maxQueries();
+        if (queries.size() > maxQueries) {
+            return String.format("Error: %d queries given, at most %d are allowed per batch", queries.size(), maxQueries);
+        }
+        try {
+            // One anchor for the whole batch so all answers describe the same moment
+            boolean range = duration != null && !duration.isBlank();
+            long now = System.currentTimeMillis();
+            long time = alignedNow();
+            List<Callable<String>> calls = new ArrayList<>(queries.size());
+            for (String promql : queries) {
+                calls.add(range
+                    ? () -> rangeQuery(promql, duration, step, now, backend, formatter(maxSeries, maxPoints, format), format)
+                    : () -> instantQuery(promql, time, maxSeries, format, backend));
+            }
+            List<CompositeCalls.Outcome<String>> outcomes =
+                compositeCalls.invokeAllSettled(calls, queryConfig.batch().maxParallelism());
+
+            if (OutputFormat.parse(format) == OutputFormat.JSON) {
+                return formatBatchJson(queries, outcomes);
+            }
+            String prefix = OutputFormat.parse(format) == OutputFormat.TEXT ? "=== " : "# === ";
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < queries.size(); i++) {
+                CompositeCalls.Outcome<String> outcome = outcomes.get(i);
+                String output = outcome.isSuccess() ? outcome.value() : "Error: " + describe(outcome.error());
+                sb.append(prefix).append(i + 1).append(". ").append(queries.get(i)).append(" ===\n")
+                    .append(output);
+                if (!output.endsWith("\n")) {
+                    sb.append('\n');
+                }
+                if (i < queries.size() - 1) {
+                    sb.append('\n');
+                }
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            LOG.errorf("Error executing batch: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * One JSON array with a {"query", "result"} or {"query", "error"} object per query, in order.
+     */
+    private static String formatBatchJson(List<String> queries, List<CompositeCalls.Outcome<String>> outcomes) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < queries.size(); i++) {
+            CompositeCalls.Outcome<String> outcome = outcomes.get(i);
+            String output = outcome.isSuccess() ? outcome.value().strip() : "Error: " + describe(outcome.error());
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"query\":");
+            JsonQueryResultFormatter.appendString(sb, queries.get(i));
+            if (output.startsWith("{")) {
+                sb.append(",\"result\":").append(output);
+            } else {
+                sb.append(",\"error\":");
+                JsonQueryResultFormatter.appendString(sb, output.startsWith("Error: ") ? output.substring(7) : output);
+            }
+            sb.append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private String instantQuery(String promql, long time, Integer maxSeries, String format, String backend) {
         try {
-            QueryResponseDto response = prometheusClient.query(promql, null);
-            return formatQueryResponse(response);
+            QueryKey key = QueryKey.instant(promql, time);
+            int seriesBudget = orDefault(maxSeries, queryConfig.budget().maxSeries());
+            if (backend != null && !backend.isBlank()) {
+                return federate(backend, target -> queryResultCache.get(key.on(target.name()),
+                    () -> singleFlight.execute(key.on(target.name()),
+                        () -> fetchQuery(target, promql, Instant.ofEpochMilli(time)))),
+                    result -> formatQueryResult(result, seriesBudget, 0, format), format);
+            }
+
+            Optional<LocalEvaluator.Evaluation> local = queryResultCache.lookup(key) == null
+                ? localQueryEngine.evaluateInstant(promql, time)
+                : Optional.empty();
+            if (local.isPresent()) {
+                return appendNote(formatQueryResult(local.get().result(), seriesBudget, 0, format),
+                    localNote(local.get()), format);
+            }
+
+            // Only a cache miss is estimated; a cached answer costs Prometheus nothing
+            AtomicReference<QueryCostGuard.Decision> decision = new AtomicReference<>();
+            QueryResult result = queryResultCache.get(key, () -> {
+                decision.set(queryCostGuard.check(promql, time, time, 0));
+                return singleFlight.execute(key, () -> fetchQuery(null, promql, Instant.ofEpochMilli(time)));
+            });
+            String output = formatQueryResult(result, seriesBudget, 0, format);
+            return decision.get() != null && decision.get().adjusted()
+                ? appendNote(output, "Note: " + decision.get().note(), format)
+                : output;
+        } catch (QueryRejectedException e) {
+            return "Query rejected: " + e.getMessage();
+        } catch (PrometheusQueryException e) {
+            return String.format("Query failed: %s - %s", e.errorType(), e.error());
         } catch (Exception e) {
             LOG.errorf("Error executing query: %s", e.getMessage());
             return "Error: " + e.getMessage();
@@ -37,21 +309,57 @@ public class PrometheusService {
     }
 
     /**
-     * Execute a range PromQL query.
+     * Run a range query ending at now and render its result; notes are appended in the given format.
      */
-    public String queryRange(String promql, String duration, String step) {
-        LOG.infof("Executing PromQL range query: %s, duration: %s, step: %s", promql, duration, step);
+    private String rangeQuery(String promql, String duration, String step, long now, String backend,
+                              Function<QueryResult, String> render, String format) {
         try {
-            Instant now = Instant.now();
-            Instant start = parseDuration(now, duration);
-
-            QueryResponseDto response = prometheusClient.queryRange(
-                promql,
-                start.toString(),
-                now.toString(),
-                step != null ? step : "1m"
-            );
-            return formatQueryResponse(response);
+            long requestedStep = PromDurations.parse(step, DEFAULT_STEP).toMillis();
+            long rangeMillis = PromDurations.parse(duration, DEFAULT_RANGE).toMillis();
+            boolean federated = backend != null && !backend.isBlank();
+
+            if (!federated) {
+                // Answer from cached subexpressions at the requested step when possible
+                long localEnd = Math.floorDiv(now, requestedStep) * requestedStep;
+                long localStart = localEnd - rangeMillis;
+                Optional<LocalEvaluator.Evaluation> local =
+                    queryResultCache.lookup(QueryKey.range(promql, localStart, localEnd, requestedStep)) == null
+                        ? localQueryEngine.evaluateRange(promql, localStart, localEnd, requestedStep)
+                        : Optional.empty();
+                if (local.isPresent()) {
+                    return appendNote(render.apply(local.get().result()), localNote(local.get()), format);
+                }
+            }
+
+            // Over-budget ranges are run with a wider step (federated queries are not estimated)
+            QueryCostGuard.Decision decision = federated
+                ? new QueryCostGuard.Decision(requestedStep, null, null)
+                : queryCostGuard.check(promql, now - rangeMillis, now, requestedStep);
+            long stepMillis = decision.stepMillis();
+
+            // Step-align the window so consecutive calls hit the same cache key
+            long end = Math.floorDiv(now, stepMillis) * stepMillis;
+            long start = end - rangeMillis;
+
+            QueryKey key = QueryKey.range(promql, start, end, stepMillis);
+            if (federated) {
+                // Federated ranges are cached per backend but not extended incrementally
+                return federate(backend, target -> queryResultCache.get(key.on(target.name()),
+                    () -> rangeQuerySplitter.fetch(start, end, stepMillis,
+                        (pieceStart, pieceEnd) -> fetchRange(target, promql, pieceStart, pieceEnd, stepMillis))),
+                    render, format);
+            }
+
+            QueryResult result = queryResultCache.get(key,
+                () -> rangeExtentCache.fetch(promql, start, end, stepMillis,
+                    (from, to) -> rangeQuerySplitter.fetch(from, to, stepMillis,
+                        (pieceStart, pieceEnd) -> fetchRange(null, promql, pieceStart, pieceEnd, stepMillis))));
+            String output = render.apply(result);
+            return decision.adjusted() ? appendNote(output, "Note: " + decision.note(), format) : output;
+        } catch (QueryRejectedException e) {
+            return "Query rejected: " + e.getMessage();
+        } catch (PrometheusQueryException e) {
+            return String.format("Query failed: %s - %s", e.errorType(), e.error());
         } catch (Exception e) {
             LOG.errorf("Error executing range query: %s", e.getMessage());
             return "Error: " + e.getMessage();
@@ -61,11 +369,12 @@ public class PrometheusService {
     /**
      * Get scrape targets status.
      */
-    public String getTargets(String state) {
+    @WithSpan
+    public String getTargets(String state, String scrapePool, String health, String labels) {
         LOG.infof("Getting targets with state: %s", state);
         try {
-            TargetsResponseDto response = prometheusClient.getTargets(state);
-            return formatTargetsResponse(response);
+            TargetFilter filter = TargetFilter.of(scrapePool, health, labels);
+            return formatTargetsResponse(stateSnapshots.targets(filter), state, filter);
         } catch (Exception e) {
             LOG.errorf("Error getting targets: %s", e.getMessage());
             return "Error: " + e.getMessage();
@@ -75,11 +384,11 @@ public class PrometheusService {
     /**
      * Get alerting rules.
      */
+    @WithSpan
     public String getAlertingRules() {
         LOG.info("Getting alerting rules");
         try {
-            RulesResponseDto response = prometheusClient.getRules("alert");
-            return formatRulesResponse(response);
+            return formatRulesResponse(filterRules(stateSnapshots.rules(), "alerting"));
         } catch (Exception e) {
             LOG.errorf("Error getting alerting rules: %s", e.getMessage());
             return "Error: " + e.getMessage();
@@ -89,106 +398,361 @@ public class PrometheusService {
     /**
      * Get recording rules.
      */
+    @WithSpan
     public String getRecordingRules() {
         LOG.info("Getting recording rules");
         try {
-            RulesResponseDto response = prometheusClient.getRules("record");
-            return formatRulesResponse(response);
+            return formatRulesResponse(filterRules(stateSnapshots.rules(), "recording"));
         } catch (Exception e) {
             LOG.errorf("Error getting recording rules: %s", e.getMessage());
             return "Error: " + e.getMessage();
         }
     }
 
+    /**
+     * Get alerting and recording rules from a single /rules snapshot, partitioned by type.
+     */
+    @WithSpan
+    public String getAllRules() {
+        LOG.info("Getting all rules");
+        try {
+            RulesResponseDto response = stateSnapshots.rules();
+            if (!"success".equals(response.status())) {
+                return "Failed to get rules";
+            }
+            return "=== Alerting Rules ===\n"
+                + formatRulesResponse(filterRules(response, "alerting")) + "\n"
+                + "=== Recording Rules ===\n"
+                + formatRulesResponse(filterRules(response, "recording"));
+        } catch (Exception e) {
+            LOG.errorf("Error getting rules: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * List target health and rule state changes detected by the background poller.
+     *
+     * @param since        how far back to look, e.g. '15m'; null lists changes since the previous call
+     * @param connectionId MCP connection whose previous call is meant
+     */
+    @WithSpan
+    public String getChanges(String since, String connectionId) {
+        LOG.infof("Getting changes since: %s", since);
+        if (!stateSnapshots.isEnabled()) {
+            return "Change tracking is disabled (prometheus.snapshot.enabled=false)";
+        }
+        try {
+            Instant from = since == null || since.isBlank()
+                ? null
+                : Instant.now().minus(PromDurations.parse(since, DEFAULT_RANGE));
+            StateSnapshots.ChangeLog log = stateSnapshots.changesSince(from, connectionId);
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("Changes since ").append(log.since() != null ? log.since() : "start").append(": ")
+                .append(log.changes().size()).append("\n\n");
+            for (StateSnapshots.Change change : log.changes()) {
+                sb.append(change.at()).append(' ').append(change.kind()).append(' ')
+                    .append(change.subject()).append(": ").append(change.from())
+                    .append(" -> ").append(change.to()).append("\n");
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            LOG.errorf("Error getting changes: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+
     /**
      * Get Prometheus server status.
      */
+    @WithSpan
     public String getServerStatus() {
         LOG.info("Getting server status");
         try {
-            Object buildInfo = prometheusClient.getBuildInfo();
-            Object runtimeInfo = prometheusClient.getRuntimeInfo();
-            return String.format("Build Info:\n%s\n\nRuntime Info:\n%s", buildInfo, runtimeInfo);
+            List<Object> info = compositeCalls.invokeAll(List.<Callable<Object>>of(
+                prometheusClient::getBuildInfo,
+                prometheusClient::getRuntimeInfo
+            ));
+            return String.format("Build Info:\n%s\n\nRuntime Info:\n%s", info.get(0), info.get(1));
         } catch (Exception e) {
             LOG.errorf("Error getting server status: %s", e.getMessage());
             return "Error: " + e.getMessage();
         }
     }
 
+    /**
+     * Search metric names by prefix, falling back to fuzzy matching.
+     */
+    @WithSpan
+    public String searchMetrics(String search, Integer limit) {
+        LOG.infof("Searching metric names: %s", search);
+        try {
+            NameIndex.Matches matches = metadataIndex.current().metrics().search(search, orDefault(limit, DEFAULT_SEARCH_LIMIT));
+            return formatMatches("Metrics", search, matches);
+        } catch (Exception e) {
+            LOG.errorf("Error searching metric names: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Search label names by prefix, falling back to fuzzy matching.
+     */
+    @WithSpan
+    public String searchLabels(String search, Integer limit) {
+        LOG.infof("Searching label names: %s", search);
+        try {
+            NameIndex.Matches matches = metadataIndex.current().labels().search(search, orDefault(limit, DEFAULT_SEARCH_LIMIT));
+            return formatMatches("Labels", search, matches);
+        } catch (Exception e) {
+            LOG.errorf("Error searching label names: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Search the values of a label by prefix, falling back to fuzzy matching.
+     */
+    @WithSpan
+    public String searchLabelValues(String label, String search, Integer limit) {
+        LOG.infof("Searching values of label %s: %s", label, search);
+        try {
+            NameIndex.Matches matches = metadataIndex.labelValues(label).search(search, orDefault(limit, DEFAULT_SEARCH_LIMIT));
+            return formatMatches("Values of " + label, search, matches);
+        } catch (Exception e) {
+            LOG.errorf("Error searching label values: %s", e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+
     // =========================================================================
     // Private Helper Methods
     // =========================================================================
 
-    private Instant parseDuration(Instant from, String duration) {
-        if (duration == null || duration.isEmpty()) {
-            return from.minus(1, ChronoUnit.HOURS);
+    private static String limiterKey(PrometheusBackends.Backend backend) {
+        return backend != null ? backend.name() : ConcurrencyLimits.DEFAULT_BACKEND;
+    }
+
+    private String formatStep(long stepMillis) {
+        return stepMillis % 1000 == 0 ? (stepMillis / 1000) + "s" : stepMillis + "ms";
+    }
+
+    /**
+     * Run an instant query on the given backend, or the default Prometheus when null.
+     */
+    private QueryResult fetchQuery(PrometheusBackends.Backend backend, String promql, Instant time) throws Exception {
+        PrometheusClient client = backend != null ? backend.client() : prometheusClient;
+        return concurrencyLimits.run(limiterKey(backend), ConcurrencyLimits.Lane.CHEAP, () -> {
+            long startNanos = System.nanoTime();
+            try (InputStream body = DeadlineInputStream.of(client.queryStream(promql, time != null ? time.toString() : null),
+                    startNanos, Duration.ofMillis(queryTimeoutMillis))) {
+                return clientMetrics.decode("query", body, queryResponseDecoder::decode);
+            }
+        });
+    }
+
+    /**
+     * Fetch one sub-range from the given backend, or the default Prometheus when null.
+     */
+    private QueryResult fetchRange(PrometheusBackends.Backend backend, String promql,
+                                   long startMillis, long endMillis, long stepMillis) throws IOException {
+        QueryKey key = QueryKey.range(promql, startMillis, endMillis, stepMillis);
+        try {
+            return singleFlight.execute(backend != null ? key.on(backend.name()) : key,
+                () -> fetchRange(backend, promql, Instant.ofEpochMilli(startMillis), Instant.ofEpochMilli(endMillis),
+                    formatStep(stepMillis)));
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
         }
+    }
 
-        String value = duration.replaceAll("[^0-9]", "");
-        String unit = duration.replaceAll("[0-9]", "").toLowerCase();
-        int amount = Integer.parseInt(value);
+    private QueryResult fetchRange(PrometheusBackends.Backend backend, String promql, Instant start, Instant end,
+                                   String step) throws Exception {
+        PrometheusClient client = backend != null ? backend.client() : prometheusClient;
+        return concurrencyLimits.run(limiterKey(backend), ConcurrencyLimits.Lane.EXPENSIVE, () -> {
+            long startNanos = System.nanoTime();
+            try (InputStream body = DeadlineInputStream.of(client.queryRangeStream(promql, start.toString(), end.toString(), step),
+                    startNanos, Duration.ofMillis(queryRangeTimeoutMillis))) {
+                return clientMetrics.decode("query_range", body, queryResponseDecoder::decode);
+            }
+        });
+    }
 
-        return switch (unit) {
-            case "m" -> from.minus(amount, ChronoUnit.MINUTES);
-            case "h" -> from.minus(amount, ChronoUnit.HOURS);
-            case "d" -> from.minus(amount, ChronoUnit.DAYS);
-            default -> from.minus(1, ChronoUnit.HOURS);
-        };
+    /**
+     * Run a range query on the default Prometheus, analyzing each series as it is decoded
+     * instead of collecting its samples.
+     */
+    private AnalyzingSampleHandler streamRange(String promql, long startMillis, long endMillis, long stepMillis)
+            throws Exception {
+        return concurrencyLimits.run(ConcurrencyLimits.Lane.EXPENSIVE, () -> {
+            AnalyzingSampleHandler handler = new AnalyzingSampleHandler(
+                queryConfig.analysis().changeThreshold(), queryConfig.analysis().spikeThreshold());
+            long startNanos = System.nanoTime();
+            try (InputStream body = DeadlineInputStream.of(prometheusClient.queryRangeStream(promql,
+                    Instant.ofEpochMilli(startMillis).toString(), Instant.ofEpochMilli(endMillis).toString(),
+                    formatStep(stepMillis)), startNanos, Duration.ofMillis(queryRangeTimeoutMillis))) {
+                QueryResponseDecoder.QueryStatus status =
+                    clientMetrics.decode("query_range", body, in -> queryResponseDecoder.decode(in, handler));
+                if (!status.isSuccess()) {
+                    throw new PrometheusQueryException(status.errorType(), status.error());
+                }
+            }
+            return handler;
+        });
     }
 
-    private String formatQueryResponse(QueryResponseDto response) {
-        if (!"success".equals(response.status())) {
-            return String.format("Query failed: %s - %s", response.errorType(), response.error());
+    private int orDefault(Integer value, int fallback) {
+        return value != null ? value : fallback;
+    }
+
+    /**
+     * Loads one backend's result of a federated query.
+     */
+    @FunctionalInterface
+    private interface BackendQuery {
+        QueryResult fetch(PrometheusBackends.Backend backend) throws Exception;
+    }
+
+    /**
+     * Scatter a query to the selected backends concurrently and merge the answers with a backend label.
+     * Backends that fail or exceed their timeout are left out and listed after the result.
+     */
+    private String federate(String selector, BackendQuery query, Function<QueryResult, String> render, String format) {
+        List<PrometheusBackends.Backend> selected = prometheusBackends.select(selector);
+
+        List<Callable<QueryResult>> calls = new ArrayList<>(selected.size());
+        List<Duration> timeouts = new ArrayList<>(selected.size());
+        for (PrometheusBackends.Backend backend : selected) {
+            calls.add(() -> query.fetch(backend));
+            timeouts.add(backend.timeout());
+        }
+        List<CompositeCalls.Outcome<QueryResult>> outcomes = compositeCalls.invokeAllSettled(calls, timeouts);
+
+        Map<String, QueryResult> results = new LinkedHashMap<>();
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < selected.size(); i++) {
+            String name = selected.get(i).name();
+            CompositeCalls.Outcome<QueryResult> outcome = outcomes.get(i);
+            if (outcome.isSuccess()) {
+                results.put(name, outcome.value());
+            } else {
+                LOG.warnf("Backend %s failed: %s", name, outcome.error().getMessage());
+                failed.add(name + " (" + describe(outcome.error()) + ")");
+            }
+        }
+        if (results.isEmpty()) {
+            return "Error: all backends failed: " + String.join(", ", failed);
         }
 
-        if (response.data() == null || response.data().result() == null) {
-            return "No data returned";
+        QueryResult merged = Matrices.merge(results, federationConfig.label());
+        String output = render.apply(merged);
+        if (failed.isEmpty()) {
+            return output;
         }
+        return appendNote(output, "Unavailable backends: " + String.join(", ", failed), format);
+    }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("Result Type: ").append(response.data().resultType()).append("\n\n");
+    /**
+     * Append a note after the result; as a # comment line for machine-readable formats.
+     */
+    private static String appendNote(String output, String note, String format) {
+        return switch (OutputFormat.parse(format)) {
+            case TEXT -> output + (output.endsWith("\n") ? "" : "\n") + note + "\n";
+            // A comment line would make the JSON unparseable
+            case JSON -> JsonQueryResultFormatter.withWarning(output, note.startsWith("Note: ") ? note.substring(6) : note);
+            default -> output + (output.endsWith("\n") ? "" : "\n") + "# " + note + "\n";
+        };
+    }
 
-        for (QueryResponseDto.QueryResultDto result : response.data().result()) {
-            sb.append("Metric: ").append(formatMetricLabels(result.metric())).append("\n");
+    /**
+     * Current time aligned to the instant resolution, so repeated calls within the same window share a cache entry.
+     */
+    private long alignedNow() {
+        long resolution = Math.max(1, cacheConfig.instantResolution().toMillis());
+        return Math.floorDiv(System.currentTimeMillis(), resolution) * resolution;
+    }
 
-            if (result.value() != null) {
-                sb.append("Value: ").append(result.value().get(1)).append("\n");
-            }
+    private static String localNote(LocalEvaluator.Evaluation evaluation) {
+        return "Note: evaluated locally from cached results of: " + String.join(", ", evaluation.sources());
+    }
 
-            if (result.values() != null && !result.values().isEmpty()) {
-                sb.append("Values: ").append(result.values().size()).append(" samples\n");
-                // Show last 5 values
-                int start = Math.max(0, result.values().size() - 5);
-                for (int i = start; i < result.values().size(); i++) {
-                    List<Object> v = result.values().get(i);
-                    sb.append("  ").append(v.get(0)).append(": ").append(v.get(1)).append("\n");
-                }
-            }
-            sb.append("\n");
+    private static String describe(Throwable error) {
+        if (error instanceof PrometheusQueryException e) {
+            return e.errorType() + " - " + e.error();
         }
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
 
+    private String formatAnalysis(AnomalyReport report, boolean matrix, int maxSeries) {
+        if (!matrix) {
+            return "No data returned";
+        }
+        long startNanos = System.nanoTime();
+        StringBuilder sb = new StringBuilder(256 + Math.min(maxSeries, report.anomalousSeries()) * 512);
+        report.format(sb, maxSeries);
+        clientMetrics.recordFormatting("analysis", System.nanoTime() - startNanos);
         return sb.toString();
     }
 
-    private String formatMetricLabels(Map<String, String> labels) {
-        if (labels == null || labels.isEmpty()) {
-            return "{}";
+    private Function<QueryResult, String> formatter(Integer maxSeries, Integer maxPoints, String format) {
+        int seriesBudget = orDefault(maxSeries, queryConfig.budget().maxSeries());
+        int pointBudget = orDefault(maxPoints, queryConfig.budget().maxPoints());
+        return result -> formatQueryResult(result, seriesBudget, pointBudget, format);
+    }
+
+    // The format methods are package-private for the JMH benchmarks in benchmarks/
+    String formatQueryResult(QueryResult result, int maxSeries, int maxPoints, String format) {
+        if (result.resultType() == null) {
+            return "No data returned";
         }
-        return labels.entrySet().stream()
-            .map(e -> e.getKey() + "=\"" + e.getValue() + "\"")
-            .collect(Collectors.joining(", ", "{", "}"));
+
+        boolean matrix = "matrix".equals(result.resultType());
+        ResultBudget.Ranking ranking = ResultBudget.Ranking.parse(queryConfig.budget().ranking(),
+            matrix ? ResultBudget.Ranking.VARIANCE : ResultBudget.Ranking.VALUE);
+        ResultBudget.Budgeted budgeted = ResultBudget.apply(result, maxSeries, ranking);
+
+        // Size the buffer up front so large results are written without regrowing
+        int pointsPerSeries = matrix ? (maxPoints > 0 ? maxPoints : 8) : 1;
+        long startNanos = System.nanoTime();
+        StringBuilder sb = new StringBuilder(256 + budgeted.result().series().size() * (160 + 32 * pointsPerSeries));
+        OutputFormat outputFormat = OutputFormat.parse(format);
+        QueryResultFormatter.of(outputFormat).format(budgeted, maxPoints, sb);
+        clientMetrics.recordFormatting(outputFormat.name().toLowerCase(), System.nanoTime() - startNanos);
+        return sb.toString();
     }
 
-    private String formatTargetsResponse(TargetsResponseDto response) {
-        if (!"success".equals(response.status())) {
+    String formatMatches(String what, String search, NameIndex.Matches matches) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(what);
+        if (search != null && !search.isEmpty()) {
+            sb.append(matches.fuzzy() ? " fuzzy-matching \"" : " starting with \"").append(search).append('"');
+        }
+        sb.append(": ").append(matches.names().size()).append(" of ").append(matches.total()).append("\n\n");
+        for (String name : matches.names()) {
+            sb.append(name).append("\n");
+        }
+        return sb.toString();
+    }
+
+    String formatTargetsResponse(TargetSet response, String state, TargetFilter filter) {
+        if (!response.isSuccess()) {
             return "Failed to get targets";
         }
+        boolean showActive = !"dropped".equalsIgnoreCase(state);
+        boolean showDropped = !"active".equalsIgnoreCase(state);
 
         StringBuilder sb = new StringBuilder();
-        sb.append("=== Active Targets ===\n\n");
+        if (showActive) {
+            sb.append("=== Active Targets ===\n\n");
+            if (!filter.isEmpty()) {
+                sb.append("Matching: ").append(response.activeTargets().size())
+                    .append(" of ").append(response.totalActive()).append("\n\n");
+            }
 
-        if (response.data().activeTargets() != null) {
-            for (var target : response.data().activeTargets()) {
+            for (var target : response.activeTargets()) {
                 sb.append("Pool: ").append(target.scrapePool()).append("\n");
                 sb.append("URL: ").append(target.scrapeUrl()).append("\n");
                 sb.append("Health: ").append(target.health()).append("\n");
@@ -199,14 +763,34 @@ public class PrometheusService {
             }
         }
 
-        if (response.data().droppedTargets() != null && !response.data().droppedTargets().isEmpty()) {
-            sb.append("=== Dropped Targets: ").append(response.data().droppedTargets().size()).append(" ===\n");
+        if (showDropped && response.droppedTargets() > 0) {
+            sb.append("=== Dropped Targets: ").append(response.droppedTargets()).append(" ===\n");
         }
 
         return sb.toString();
     }
 
-    private String formatRulesResponse(RulesResponseDto response) {
+
+    private RulesResponseDto filterRules(RulesResponseDto response, String type) {
+        List<RulesResponseDto.RuleGroupDto> groups = new ArrayList<>();
+        if (response.data() != null && response.data().groups() != null) {
+            for (var group : response.data().groups()) {
+                if (group.rules() == null) {
+                    continue;
+                }
+                List<RulesResponseDto.RuleDto> rules = group.rules().stream()
+                    .filter(rule -> type.equals(rule.type()))
+                    .toList();
+                if (!rules.isEmpty()) {
+                    groups.add(new RulesResponseDto.RuleGroupDto(group.name(), group.file(), rules,
+                        group.interval(), group.limit(), group.evaluationTime(), group.lastEvaluation()));
+                }
+            }
+        }
+        return new RulesResponseDto(response.status(), new RulesResponseDto.RulesDataDto(groups));
+    }
+
+    String formatRulesResponse(RulesResponseDto response) {
         if (!"success".equals(response.status())) {
             return "Failed to get rules";
         }
@@ -0,0 +1,113 @@
+package com.monitoring.prometheus.application.service;
+
+import com.monitoring.prometheus.application.cache.QueryResultCache;
+import com.monitoring.prometheus.application.cache.RangeExtentCache;
+import com.monitoring.prometheus.application.cache.SingleFlight;
+import com.monitoring.prometheus.application.limit.ConcurrencyLimits;
+import com.monitoring.prometheus.infrastructure.store.DiskResultStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes cache, coalescing and concurrency-limit statistics on /q/metrics.
+ *
+ * The meters read the components' own counters when scraped, so nothing
+ * is recorded on the request path.
+ */
+@ApplicationScoped
+public class ServiceMetrics implements MeterBinder {
+
+    @Inject
+    QueryResultCache queryResultCache;
+
+    @Inject
+    RangeExtentCache rangeExtentCache;
+
+    @Inject
+    SingleFlight singleFlight;
+
+    @Inject
+    ConcurrencyLimits concurrencyLimits;
+
+    @Inject
+    DiskResultStore diskResultStore;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "mcp.cache.requests", "result", "hit", c -> c.queryResultCache.stats().hits());
+        counter(registry, "mcp.cache.requests", "result", "miss", c -> c.queryResultCache.stats().misses());
+        FunctionCounter.builder("mcp.cache.evictions", this, c -> c.queryResultCache.stats().evictions())
+            .description("Results evicted from the query cache")
+            .register(registry);
+        Gauge.builder("mcp.cache.entries", this, c -> c.queryResultCache.stats().entries())
+            .description("Results held in the query cache")
+            .register(registry);
+        Gauge.builder("mcp.cache.size", this, c -> c.queryResultCache.stats().bytes())
+            .description("Estimated size of the query cache")
+            .baseUnit("bytes")
+            .register(registry);
+
+        counter(registry, "mcp.extent.requests", "result", "hit", c -> c.rangeExtentCache.stats().fullHits());
+        counter(registry, "mcp.extent.requests", "result", "partial", c -> c.rangeExtentCache.stats().partialHits());
+        counter(registry, "mcp.extent.requests", "result", "miss", c -> c.rangeExtentCache.stats().misses());
+        Gauge.builder("mcp.extent.size", this, c -> c.rangeExtentCache.stats().bytes())
+            .description("Estimated size of the range extent cache")
+            .baseUnit("bytes")
+            .register(registry);
+
+        if (diskResultStore.isEnabled()) {
+            counter(registry, "mcp.disk.operations", "operation", "read", c -> c.diskResultStore.stats().reads());
+            counter(registry, "mcp.disk.operations", "operation", "write", c -> c.diskResultStore.stats().writes());
+            Gauge.builder("mcp.disk.size", this, c -> c.diskResultStore.stats().bytes())
+                .description("Size of the disk cache segments")
+                .baseUnit("bytes")
+                .register(registry);
+            Gauge.builder("mcp.disk.entries", this, c -> c.diskResultStore.stats().entries())
+                .description("Entries indexed in the disk cache")
+                .register(registry);
+        }
+
+        counter(registry, "mcp.singleflight.calls", "result", "executed", c -> c.singleFlight.stats().executed());
+        counter(registry, "mcp.singleflight.calls", "result", "coalesced", c -> c.singleFlight.stats().coalesced());
+
+        for (String backend : concurrencyLimits.backends()) {
+            for (ConcurrencyLimits.Lane lane : ConcurrencyLimits.Lane.values()) {
+                int index = lane.ordinal();
+                String name = lane.name().toLowerCase();
+                Gauge.builder("mcp.limit.limit", this, c -> c.concurrencyLimits.stats(backend).get(index).limit())
+                    .description("Current adaptive concurrency limit")
+                    .tag("backend", backend)
+                    .tag("lane", name)
+                    .register(registry);
+                Gauge.builder("mcp.limit.in.flight", this, c -> c.concurrencyLimits.stats(backend).get(index).inFlight())
+                    .description("Requests to Prometheus in flight")
+                    .tag("backend", backend)
+                    .tag("lane", name)
+                    .register(registry);
+                Gauge.builder("mcp.limit.queued", this, c -> c.concurrencyLimits.stats(backend).get(index).queued())
+                    .description("Requests waiting for a slot")
+                    .tag("backend", backend)
+                    .tag("lane", name)
+                    .register(registry);
+                FunctionCounter.builder("mcp.limit.rejected", this, c -> c.concurrencyLimits.stats(backend).get(index).rejected())
+                    .description("Requests rejected because Prometheus was saturated")
+                    .tag("backend", backend)
+                    .tag("lane", name)
+                    .register(registry);
+            }
+        }
+    }
+
+    private void counter(MeterRegistry registry, String name, String tag, String value,
+                         ToDoubleFunction<ServiceMetrics> function) {
+        FunctionCounter.builder(name, this, function)
+            .tag(tag, value)
+            .register(registry);
+    }
+}
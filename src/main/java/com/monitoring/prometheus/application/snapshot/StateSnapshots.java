@@ -0,0 +1,285 @@
+package com.monitoring.prometheus.application.snapshot;
+
+import com.monitoring.prometheus.infrastructure.client.DeadlineInputStream;
+import com.monitoring.prometheus.infrastructure.client.PrometheusClient;
+import com.monitoring.prometheus.infrastructure.config.SnapshotConfig;
+import com.monitoring.prometheus.infrastructure.decoder.TargetFilter;
+import com.monitoring.prometheus.infrastructure.decoder.TargetSet;
+import com.monitoring.prometheus.infrastructure.decoder.TargetsDecoder;
+import com.monitoring.prometheus.infrastructure.dto.RulesResponseDto;
+import com.monitoring.prometheus.infrastructure.metrics.ClientMetrics;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Background-polled snapshots of /targets and /rules.
+ *
+ * Tool calls are served from the latest snapshot, and every poll is diffed against
+ * the previous one so target health and rule state changes can be listed cheaply.
+ */
+@ApplicationScoped
+public class StateSnapshots {
+
+    private static final Logger LOG = Logger.getLogger(StateSnapshots.class);
+    private static final int MAX_CURSORS = 1024;
+
+    @Inject
+    @RestClient
+    PrometheusClient prometheusClient;
+
+    @Inject
+    TargetsDecoder targetsDecoder;
+
+    @Inject
+    ClientMetrics clientMetrics;
+
+    @Inject
+    SnapshotConfig config;
+
+    @ConfigProperty(name = "com.monitoring.prometheus.infrastructure.client.PrometheusClient/getTargetsStream/Timeout/value",
+                    defaultValue = "15000")
+    long targetsTimeoutMillis;
+
+    private final ReentrantLock targetsLock = new ReentrantLock();
+    private final ReentrantLock rulesLock = new ReentrantLock();
+    private final Deque<Change> changes = new ArrayDeque<>();
+    private volatile Snapshot<TargetSet> targets;
+    private volatile Snapshot<RulesResponseDto> rules;
+    /** Time of the previous changesSince call, per MCP connection; least recently used dropped first. */
+    private final Map<String, Instant> lastChecks = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+            return size() > MAX_CURSORS;
+        }
+    };
+
+    public record Snapshot<T>(T value, Instant takenAt) {}
+
+    /**
+     * A detected change of a target's health or a rule's state or health.
+     *
+     * @param kind    "target" or "rule"
+     * @param subject identifies the target or rule
+     * @param from    previous state, or "absent" when it appeared
+     * @param to      new state, or "absent" when it disappeared
+     */
+    public record Change(Instant at, String kind, String subject, String from, String to) {}
+
+    /**
+     * Changes detected after {@code since}.
+     */
+    public record ChangeLog(Instant since, List<Change> changes) {}
+
+    @Scheduled(every = "${prometheus.snapshot.refresh-interval:30s}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void poll() {
+        if (!config.enabled()) {
+            return;
+        }
+        try {
+            refreshTargets();
+        } catch (Exception e) {
+            LOG.warnf("Targets snapshot refresh failed: %s", e.getMessage());
+        }
+        try {
+            refreshRules();
+        } catch (Exception e) {
+            LOG.warnf("Rules snapshot refresh failed: %s", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.enabled();
+    }
+
+    /**
+     * Matching active targets and the dropped count, from the snapshot when fresh enough.
+     * With snapshots disabled the filter is applied while the live response is decoded.
+     */
+    public TargetSet targets(TargetFilter filter) {
+        Snapshot<TargetSet> current = targets;
+        if (!config.enabled()) {
+            return fetchTargets(filter);
+        }
+        if (isStale(current)) {
+            targetsLock.lock();
+            try {
+                if (isStale(targets)) {
+                    refreshTargets();
+                }
+            } finally {
+                targetsLock.unlock();
+            }
+            current = targets;
+        }
+        return current.value().filter(filter);
+    }
+
+    /**
+     * Rules of all types, from the snapshot when fresh enough.
+     */
+    public RulesResponseDto rules() {
+        Snapshot<RulesResponseDto> current = rules;
+        if (!config.enabled()) {
+            return prometheusClient.getRules(null);
+        }
+        if (isStale(current)) {
+            rulesLock.lock();
+            try {
+                if (isStale(rules)) {
+                    refreshRules();
+                }
+            } finally {
+                rulesLock.unlock();
+            }
+            current = rules;
+        }
+        return current.value();
+    }
+
+    /**
+     * Changes detected after the given instant; null means since the previous call
+     * made for the same connection, so concurrent SSE sessions do not share a cursor.
+     */
+    public ChangeLog changesSince(Instant since, String connectionId) {
+        Instant now = Instant.now();
+        Instant previous;
+        synchronized (lastChecks) {
+            previous = lastChecks.put(connectionId, now);
+        }
+        Instant from = since != null ? since : previous;
+        List<Change> result = new ArrayList<>();
+        synchronized (changes) {
+            for (Change change : changes) {
+                if (from == null || change.at().isAfter(from)) {
+                    result.add(change);
+                }
+            }
+        }
+        return new ChangeLog(from, result);
+    }
+
+    public void refreshTargets() {
+        targetsLock.lock();
+        try {
+            TargetSet response = fetchTargets(TargetFilter.ALL);
+            if (!response.isSuccess()) {
+                throw new IllegalStateException("Prometheus returned status " + response.status());
+            }
+            Snapshot<TargetSet> previous = targets;
+            targets = new Snapshot<>(response, Instant.now());
+            if (previous != null) {
+                diff("target", targetStates(previous.value()), targetStates(response));
+            }
+        } finally {
+            targetsLock.unlock();
+        }
+    }
+
+    public void refreshRules() {
+        rulesLock.lock();
+        try {
+            RulesResponseDto response = prometheusClient.getRules(null);
+            if (!"success".equals(response.status())) {
+                throw new IllegalStateException("Prometheus returned status " + response.status());
+            }
+            Snapshot<RulesResponseDto> previous = rules;
+            rules = new Snapshot<>(response, Instant.now());
+            if (previous != null) {
+                diff("rule", ruleStates(previous.value()), ruleStates(response));
+            }
+        } finally {
+            rulesLock.unlock();
+        }
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private boolean isStale(Snapshot<?> snapshot) {
+        return snapshot == null || snapshot.takenAt().plus(config.maxAge()).isBefore(Instant.now());
+    }
+
+    private TargetSet fetchTargets(TargetFilter filter) {
+        long startNanos = System.nanoTime();
+        try (InputStream body = DeadlineInputStream.of(prometheusClient.getTargetsStream(null),
+                startNanos, Duration.ofMillis(targetsTimeoutMillis))) {
+            return clientMetrics.decode("targets", body, stream -> targetsDecoder.decode(stream, filter));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, String> targetStates(TargetSet response) {
+        Map<String, String> states = new HashMap<>();
+        for (var target : response.activeTargets()) {
+            states.put(target.scrapePool() + " " + target.scrapeUrl(), target.health());
+        }
+        return states;
+    }
+
+    private Map<String, String> ruleStates(RulesResponseDto response) {
+        Map<String, String> states = new HashMap<>();
+        if (response.data() != null && response.data().groups() != null) {
+            for (var group : response.data().groups()) {
+                if (group.rules() == null) {
+                    continue;
+                }
+                for (var rule : group.rules()) {
+                    String subject = group.name() + "/" + rule.name() + (rule.labels() != null ? rule.labels() : "");
+                    String state = rule.state() != null ? rule.state() + ", health " + rule.health() : "health " + rule.health();
+                    states.put(subject, state);
+                }
+            }
+        }
+        return states;
+    }
+
+    private void diff(String kind, Map<String, String> before, Map<String, String> after) {
+        Instant now = Instant.now();
+        List<Change> detected = new ArrayList<>();
+        for (Map.Entry<String, String> entry : after.entrySet()) {
+            String previous = before.get(entry.getKey());
+            if (previous == null && !before.containsKey(entry.getKey())) {
+                detected.add(new Change(now, kind, entry.getKey(), "absent", entry.getValue()));
+            } else if (!Objects.equals(previous, entry.getValue())) {
+                detected.add(new Change(now, kind, entry.getKey(), previous, entry.getValue()));
+            }
+        }
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            if (!after.containsKey(entry.getKey())) {
+                detected.add(new Change(now, kind, entry.getKey(), entry.getValue(), "absent"));
+            }
+        }
+        if (detected.isEmpty()) {
+            return;
+        }
+        LOG.debugf("Detected %d %s changes", detected.size(), kind);
+        synchronized (changes) {
+            changes.addAll(detected);
+            while (changes.size() > config.maxChanges()) {
+                changes.removeFirst();
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.monitoring.prometheus.application.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monitoring.prometheus.application.metadata.MetadataIndex;
+import com.monitoring.prometheus.application.service.CompositeCalls;
+import com.monitoring.prometheus.infrastructure.client.PrometheusBackends;
+import com.monitoring.prometheus.infrastructure.client.PrometheusClient;
+import com.monitoring.prometheus.infrastructure.config.MetadataConfig;
+import com.monitoring.prometheus.infrastructure.config.StartupConfig;
+import com.monitoring.prometheus.infrastructure.dto.AlertsResponseDto;
+import com.monitoring.prometheus.infrastructure.dto.LabelsResponseDto;
+import com.monitoring.prometheus.infrastructure.dto.QueryResponseDto;
+import com.monitoring.prometheus.infrastructure.dto.RulesResponseDto;
+import com.monitoring.prometheus.infrastructure.dto.TargetsResponseDto;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Moves first-call costs to startup: the REST client and its pooled connections
+ * (TCP and TLS handshakes), the Jackson deserializers of the DTOs and, optionally,
+ * the metadata index.
+ *
+ * Runs on a virtual thread so the MCP transport is ready immediately; a tool call
+ * arriving before the warm-up finishes simply does the remaining work itself.
+ */
+@ApplicationScoped
+public class StartupWarmup {
+
+    private static final Logger LOG = Logger.getLogger(StartupWarmup.class);
+    private static final List<Class<?>> RESPONSE_TYPES = List.of(QueryResponseDto.class, TargetsResponseDto.class,
+        RulesResponseDto.class, AlertsResponseDto.class, LabelsResponseDto.class);
+
+    @Inject
+    @RestClient
+    PrometheusClient prometheusClient;
+
+    @Inject
+    PrometheusBackends backends;
+
+    @Inject
+    CompositeCalls compositeCalls;
+
+    @Inject
+    MetadataIndex metadataIndex;
+
+    @Inject
+    MetadataConfig metadataConfig;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    StartupConfig config;
+
+    void onStart(@Observes StartupEvent event) {
+        boolean preload = config.preloadMetadata() && metadataConfig.enabled();
+        if (!config.warmup() && !preload) {
+            return;
+        }
+        Thread.ofVirtual().name("startup-warmup").start(() -> warmUp(preload));
+    }
+
+    void warmUp(boolean preload) {
+        long startNanos = System.nanoTime();
+        if (config.warmup()) {
+            prefetchDeserializers();
+            connect();
+        }
+        if (preload) {
+            try {
+                metadataIndex.current();
+            } catch (Exception e) {
+                LOG.warnf("Metadata preload failed: %s", e.getMessage());
+            }
+        }
+        LOG.infof("Startup warm-up finished in %d ms", (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    /**
+     * Readers fetch their root deserializer eagerly, and the mapper caches it for
+     * the REST client, so the DTOs are introspected here rather than on the first response.
+     */
+    private void prefetchDeserializers() {
+        for (Class<?> type : RESPONSE_TYPES) {
+            try {
+                objectMapper.readerFor(type);
+            } catch (RuntimeException e) {
+                LOG.debugf("Cannot prepare deserializer for %s: %s", type.getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A cheap request per backend, concurrently, leaves an open connection in each pool.
+     */
+    private void connect() {
+        List<String> names = new ArrayList<>();
+        List<Callable<Object>> calls = new ArrayList<>();
+        names.add("default");
+        calls.add(prometheusClient::getBuildInfo);
+        if (!backends.isEmpty()) {
+            for (PrometheusBackends.Backend backend : backends.select("all")) {
+                names.add(backend.name());
+                calls.add(backend.client()::getBuildInfo);
+            }
+        }
+        List<CompositeCalls.Outcome<Object>> outcomes = compositeCalls.invokeAllSettled(calls);
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (!outcomes.get(i).isSuccess()) {
+                LOG.warnf("Cannot reach Prometheus backend %s at startup: %s",
+                    names.get(i), outcomes.get(i).error().getMessage());
+            }
+        }
+    }
+}
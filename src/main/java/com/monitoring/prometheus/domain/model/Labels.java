@@ -0,0 +1,117 @@
+package com.monitoring.prometheus.domain.model;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, interned label set of a time series.
+ *
+ * Identical label sets decoded from different responses share one instance,
+ * and label names and values are kept as parallel arrays instead of map entries.
+ */
+public final class Labels {
+
+    private static final int MAX_INTERNED = 100_000;
+    private static final Map<Labels, Labels> INTERNED = new ConcurrentHashMap<>();
+    private static final Map<String, String> STRINGS = new ConcurrentHashMap<>();
+
+    public static final Labels EMPTY = new Labels(new String[0], new String[0]);
+
+    private final String[] names;
+    private final String[] values;
+    private final int hash;
+
+    private Labels(String[] names, String[] values) {
+        this.names = names;
+        this.values = values;
+        this.hash = 31 * Arrays.hashCode(names) + Arrays.hashCode(values);
+    }
+
+    /**
+     * Return the shared instance for the given labels, keeping their iteration order.
+     */
+    public static Labels of(Map<String, String> labels) {
+        if (labels == null || labels.isEmpty()) {
+            return EMPTY;
+        }
+        String[] names = new String[labels.size()];
+        String[] values = new String[labels.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : labels.entrySet()) {
+            names[i] = internString(entry.getKey());
+            values[i] = internString(entry.getValue());
+            i++;
+        }
+        return intern(new Labels(names, values));
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int i) {
+        return names[i];
+    }
+
+    public String value(int i) {
+        return values[i];
+    }
+
+    /**
+     * Value of the given label, or null when absent.
+     */
+    public String get(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    public Map<String, String> asMap() {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            map.put(names[i], values[i]);
+        }
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Labels other) || hash != other.hash) {
+            return false;
+        }
+        return Arrays.equals(names, other.names) && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+
+    private static Labels intern(Labels labels) {
+        if (INTERNED.size() >= MAX_INTERNED || STRINGS.size() >= MAX_INTERNED) {
+            // Bound the pool; instances already handed out stay valid
+            INTERNED.clear();
+            STRINGS.clear();
+        }
+        Labels existing = INTERNED.putIfAbsent(labels, labels);
+        return existing != null ? existing : labels;
+    }
+
+    private static String internString(String s) {
+        String existing = STRINGS.putIfAbsent(s, s);
+        return existing != null ? existing : s;
+    }
+}
@@ -0,0 +1,127 @@
+package com.monitoring.prometheus.domain.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operations on query results: slicing by time, stitching adjacent pieces
+ * and merging the results of several backends.
+ */
+public final class Matrices {
+
+    public static final String MATRIX = "matrix";
+
+    private Matrices() {
+    }
+
+    /**
+     * Keep only samples with from <= timestamp <= to; series left empty are dropped.
+     */
+    public static QueryResult slice(QueryResult result, long fromMillis, long toMillis) {
+        List<Series> sliced = new ArrayList<>(result.series().size());
+        for (Series series : result.series()) {
+            Series s = slice(series, fromMillis, toMillis);
+            if (!s.isEmpty()) {
+                sliced.add(s);
+            }
+        }
+        return new QueryResult(result.resultType(), sliced);
+    }
+
+    public static Series slice(Series series, long fromMillis, long toMillis) {
+        long[] timestamps = series.timestamps();
+        int from = lowerBound(timestamps, fromMillis);
+        int to = lowerBound(timestamps, toMillis + 1);
+        if (from == 0 && to == timestamps.length) {
+            return series;
+        }
+        return new Series(series.labels(),
+            Arrays.copyOfRange(timestamps, from, to),
+            Arrays.copyOfRange(series.values(), from, to));
+    }
+
+    /**
+     * Stitch time-ordered pieces of the same matrix query into one result.
+     * Series are matched by label set; samples not newer than the last one kept are skipped,
+     * so overlapping piece boundaries are de-duplicated.
+     */
+    public static QueryResult concat(List<QueryResult> pieces) {
+        if (pieces.size() == 1) {
+            return pieces.get(0);
+        }
+        Map<Labels, Series.Builder> builders = new LinkedHashMap<>();
+        Map<Labels, Long> lastTimestamps = new LinkedHashMap<>();
+        String resultType = MATRIX;
+        for (QueryResult piece : pieces) {
+            if (piece.resultType() != null) {
+                resultType = piece.resultType();
+            }
+            for (Series series : piece.series()) {
+                Series.Builder builder = builders.computeIfAbsent(series.labels(),
+                    labels -> new Series.Builder(labels, series.size()));
+                long last = lastTimestamps.getOrDefault(series.labels(), Long.MIN_VALUE);
+                for (int i = 0; i < series.size(); i++) {
+                    long ts = series.timestampAt(i);
+                    if (ts > last) {
+                        builder.add(ts, series.valueAt(i));
+                        last = ts;
+                    }
+                }
+                lastTimestamps.put(series.labels(), last);
+            }
+        }
+        List<Series> series = new ArrayList<>(builders.size());
+        for (Series.Builder builder : builders.values()) {
+            series.add(builder.build());
+        }
+        return new QueryResult(resultType, series);
+    }
+
+    /**
+     * Merge the results of the same query from several backends, adding
+     * label=backend name to every series so equal label sets stay distinct.
+     * A series that already carries the label keeps its value.
+     *
+     * @param results results keyed by backend name, in output order
+     */
+    public static QueryResult merge(Map<String, QueryResult> results, String label) {
+        String resultType = null;
+        List<Series> merged = new ArrayList<>();
+        for (Map.Entry<String, QueryResult> entry : results.entrySet()) {
+            QueryResult result = entry.getValue();
+            if (resultType == null) {
+                resultType = result.resultType();
+            }
+            for (Series series : result.series()) {
+                merged.add(withLabel(series, label, entry.getKey()));
+            }
+        }
+        return new QueryResult(resultType, merged);
+    }
+
+    private static Series withLabel(Series series, String name, String value) {
+        if (series.labels().get(name) != null) {
+            return series;
+        }
+        Map<String, String> labels = series.labels().asMap();
+        labels.put(name, value);
+        return new Series(Labels.of(labels), series.timestamps(), series.values());
+    }
+
+    private static int lowerBound(long[] timestamps, long key) {
+        int lo = 0;
+        int hi = timestamps.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
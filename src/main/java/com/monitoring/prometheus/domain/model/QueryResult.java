@@ -0,0 +1,30 @@
+package com.monitoring.prometheus.domain.model;
+
+import java.util.List;
+
+/**
+ * Decoded result of a successful instant or range query.
+ *
+ * @param resultType Prometheus result type: matrix, vector, scalar or string
+ * @param series     the series of the result; vectors and scalars hold one sample per series
+ */
+public record QueryResult(
+    String resultType,
+    List<Series> series
+) {
+    public long estimatedBytes() {
+        long bytes = 64L;
+        for (Series s : series) {
+            bytes += s.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    public long sampleCount() {
+        long count = 0;
+        for (Series s : series) {
+            count += s.size();
+        }
+        return count;
+    }
+}
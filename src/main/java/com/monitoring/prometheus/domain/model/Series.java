@@ -0,0 +1,101 @@
+package com.monitoring.prometheus.domain.model;
+
+import java.util.Arrays;
+
+/**
+ * One time series in columnar form: parallel primitive arrays of
+ * millisecond timestamps and values, ordered by timestamp.
+ *
+ * The arrays are exposed without copying for fast iteration and must not be modified.
+ */
+public final class Series {
+
+    private final Labels labels;
+    private final long[] timestamps;
+    private final double[] values;
+
+    public Series(Labels labels, long[] timestamps, double[] values) {
+        if (timestamps.length != values.length) {
+            throw new IllegalArgumentException("timestamps and values must have the same length");
+        }
+        this.labels = labels;
+        this.timestamps = timestamps;
+        this.values = values;
+    }
+
+    public Labels labels() {
+        return labels;
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    public boolean isEmpty() {
+        return timestamps.length == 0;
+    }
+
+    public long timestampAt(int i) {
+        return timestamps[i];
+    }
+
+    public double valueAt(int i) {
+        return values[i];
+    }
+
+    public long[] timestamps() {
+        return timestamps;
+    }
+
+    public double[] values() {
+        return values;
+    }
+
+    /**
+     * Approximate heap footprint, used for size-bounded caches.
+     */
+    public long estimatedBytes() {
+        return 64L + 16L * timestamps.length;
+    }
+
+    /**
+     * Growable builder that appends samples into primitive arrays.
+     */
+    public static final class Builder {
+
+        private final Labels labels;
+        private long[] timestamps;
+        private double[] values;
+        private int size;
+
+        public Builder(Labels labels) {
+            this(labels, 16);
+        }
+
+        public Builder(Labels labels, int expectedSize) {
+            this.labels = labels;
+            this.timestamps = new long[Math.max(1, expectedSize)];
+            this.values = new double[Math.max(1, expectedSize)];
+        }
+
+        public Builder add(long timestampMillis, double value) {
+            if (size == timestamps.length) {
+                int capacity = size + (size >> 1) + 1;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            timestamps[size] = timestampMillis;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Series build() {
+            return new Series(labels, Arrays.copyOf(timestamps, size), Arrays.copyOf(values, size));
+        }
+    }
+}
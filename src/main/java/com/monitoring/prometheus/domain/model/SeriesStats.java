@@ -0,0 +1,27 @@
+package com.monitoring.prometheus.domain.model;
+
+/**
+ * Basic statistics of a series; NaN samples are counted but excluded from min, max and avg.
+ */
+public record SeriesStats(
+    int count,
+    double min,
+    double max,
+    double avg
+) {
+    public static SeriesStats of(Series series) {
+        double min = Double.NaN;
+        double max = Double.NaN;
+        double sum = 0;
+        int numeric = 0;
+        for (double v : series.values()) {
+            if (!Double.isNaN(v)) {
+                min = numeric == 0 ? v : Math.min(min, v);
+                max = numeric == 0 ? v : Math.max(max, v);
+                sum += v;
+                numeric++;
+            }
+        }
+        return new SeriesStats(series.size(), min, max, numeric == 0 ? Double.NaN : sum / numeric);
+    }
+}
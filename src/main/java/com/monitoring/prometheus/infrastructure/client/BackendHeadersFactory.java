@@ -0,0 +1,47 @@
+package com.monitoring.prometheus.infrastructure.client;
+
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import org.eclipse.microprofile.rest.client.ext.ClientHeadersFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Headers for one federation backend. Replaces the ServiceAccount factory
+ * declared on PrometheusClient, so a backend only sees the credentials
+ * configured for it.
+ */
+final class BackendHeadersFactory implements ClientHeadersFactory {
+
+    private static final BackendHeadersFactory NONE = new BackendHeadersFactory(() -> null);
+
+    private final Supplier<String> authorization;
+
+    private BackendHeadersFactory(Supplier<String> authorization) {
+        this.authorization = authorization;
+    }
+
+    static BackendHeadersFactory none() {
+        return NONE;
+    }
+
+    static BackendHeadersFactory token(String token) {
+        String value = "Bearer " + token.trim();
+        return new BackendHeadersFactory(() -> value);
+    }
+
+    static BackendHeadersFactory tokenFile(BearerTokenFile file) {
+        return new BackendHeadersFactory(file::authorization);
+    }
+
+    @Override
+    public MultivaluedMap<String, String> update(MultivaluedMap<String, String> incomingHeaders,
+                                                  MultivaluedMap<String, String> clientOutgoingHeaders) {
+        MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+        String value = authorization.get();
+        if (value != null) {
+            headers.add("Authorization", value);
+        }
+        return headers;
+    }
+}
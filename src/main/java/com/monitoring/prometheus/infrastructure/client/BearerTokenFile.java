@@ -0,0 +1,86 @@
+package com.monitoring.prometheus.infrastructure.client;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bearer token read from a file, cached in memory and re-read from disk only once
+ * the refresh interval has elapsed, so the per-request path does no file I/O.
+ */
+final class BearerTokenFile {
+
+    private static final Logger LOG = Logger.getLogger(BearerTokenFile.class);
+
+    private final Path path;
+    private final Duration refresh;
+    private final String description;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile CachedToken cached;
+    private boolean missingLogged;
+
+    /**
+     * Precomputed Authorization header value (null when no token) and when to re-read it.
+     */
+    private record CachedToken(String authorization, long refreshAtNanos) {}
+
+    BearerTokenFile(Path path, Duration refresh, String description) {
+        this.path = path;
+        this.refresh = refresh;
+        this.description = description;
+    }
+
+    /**
+     * Authorization header value, or null when the file does not exist.
+     */
+    String authorization() {
+        CachedToken token = cached;
+        if (token == null || System.nanoTime() - token.refreshAtNanos() > 0) {
+            token = reload();
+        }
+        return token.authorization();
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private CachedToken reload() {
+        // Lock rather than synchronized: the read is file I/O and may run on a virtual thread
+        reloadLock.lock();
+        try {
+            CachedToken token = cached;
+            if (token != null && System.nanoTime() - token.refreshAtNanos() <= 0) {
+                return token;
+            }
+
+            String authorization = token != null ? token.authorization() : null;
+            try {
+                if (Files.exists(path)) {
+                    authorization = "Bearer " + Files.readString(path).trim();
+                    missingLogged = false;
+                    LOG.debugf("Loaded %s", description);
+                } else {
+                    authorization = null;
+                    if (!missingLogged) {
+                        LOG.warnf("%s not found at %s", description, path);
+                        missingLogged = true;
+                    }
+                }
+            } catch (IOException e) {
+                // Keep the previous token; it is usually still valid until the next refresh
+                LOG.errorf("Failed to read %s: %s", description, e.getMessage());
+            }
+
+            cached = new CachedToken(authorization, System.nanoTime() + refresh.toNanos());
+            return cached;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+}
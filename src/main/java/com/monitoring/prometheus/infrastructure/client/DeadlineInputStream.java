@@ -0,0 +1,57 @@
+package com.monitoring.prometheus.infrastructure.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+/**
+ * Response body that fails once a deadline has passed.
+ *
+ * The read timeout of the client only limits the wait for each chunk, so a
+ * slowly trickling body could otherwise be read for ever. Wrapping the body of
+ * a streamed request bounds the whole exchange, request and decode together.
+ */
+public final class DeadlineInputStream extends FilterInputStream {
+
+    private final long deadlineNanos;
+    private final Duration timeout;
+
+    private DeadlineInputStream(InputStream in, long deadlineNanos, Duration timeout) {
+        super(in);
+        this.deadlineNanos = deadlineNanos;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Bound the body to the timeout counted from startNanos, the System.nanoTime() at which the request was sent.
+     */
+    public static InputStream of(InputStream body, long startNanos, Duration timeout) {
+        return new DeadlineInputStream(body, startNanos + timeout.toNanos(), timeout);
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkDeadline();
+        return super.read();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        checkDeadline();
+        return super.read(buffer, offset, length);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkDeadline();
+        return super.skip(n);
+    }
+
+    private void checkDeadline() throws IOException {
+        if (System.nanoTime() - deadlineNanos > 0) {
+            throw new SocketTimeoutException("Response not read within " + timeout.toMillis() + " ms");
+        }
+    }
+}
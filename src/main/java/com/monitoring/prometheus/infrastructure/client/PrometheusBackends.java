@@ -0,0 +1,145 @@
+package com.monitoring.prometheus.infrastructure.client;
+
+import com.monitoring.prometheus.infrastructure.config.AuthConfig;
+import com.monitoring.prometheus.infrastructure.config.FederationConfig;
+import io.quarkus.rest.client.reactive.QuarkusRestClientBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named Prometheus backends for federated queries, one REST client per backend.
+ *
+ * The clients are built from prometheus.federation.backends and share the
+ * serialization of the default prometheus-api client, but not its headers:
+ * each backend sends only the credentials configured for it.
+ */
+@ApplicationScoped
+public class PrometheusBackends {
+
+    private static final Logger LOG = Logger.getLogger(PrometheusBackends.class);
+
+    @Inject
+    FederationConfig config;
+
+    @Inject
+    AuthConfig authConfig;
+
+    private Map<String, Backend> backends = Map.of();
+
+    /**
+     * A configured backend and its client.
+     */
+    public record Backend(String name, PrometheusClient client, Duration timeout, Map<String, String> labels) {}
+
+    @PostConstruct
+    void init() {
+        Map<String, Backend> built = new LinkedHashMap<>();
+        for (var entry : new TreeMap<>(config.backends()).entrySet()) {
+            FederationConfig.Backend backend = entry.getValue();
+            Duration timeout = backend.timeout().orElse(config.timeout());
+            PrometheusClient client = QuarkusRestClientBuilder.newBuilder()
+                .baseUri(URI.create(backend.url()))
+                .connectTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .clientHeadersFactory(headers(entry.getKey(), backend))
+                .build(PrometheusClient.class);
+            built.put(entry.getKey(), new Backend(entry.getKey(), client, timeout, Map.copyOf(backend.labels())));
+        }
+        backends = built;
+        if (!built.isEmpty()) {
+            LOG.infof("Configured %d Prometheus backends: %s", built.size(), built.keySet());
+        }
+    }
+
+    public boolean isEmpty() {
+        return backends.isEmpty();
+    }
+
+    public List<String> names() {
+        return List.copyOf(backends.keySet());
+    }
+
+    /**
+     * Resolve a selector to backends: 'all', comma-separated names, or label matchers like env=prod.
+     * Every matcher must match a backend's labels; names are added as listed.
+     *
+     * @throws IllegalArgumentException if nothing is configured, a name is unknown or no backend matches
+     */
+    public List<Backend> select(String selector) {
+        if (backends.isEmpty()) {
+            throw new IllegalArgumentException("No backends configured (prometheus.federation.backends)");
+        }
+        String trimmed = selector.trim();
+        if ("all".equalsIgnoreCase(trimmed) || "*".equals(trimmed)) {
+            return List.copyOf(backends.values());
+        }
+
+        List<Backend> selected = new ArrayList<>();
+        Map<String, String> matchers = new LinkedHashMap<>();
+        for (String part : trimmed.split(",")) {
+            String token = part.trim();
+            int eq = token.indexOf('=');
+            if (eq > 0) {
+                matchers.put(token.substring(0, eq).trim(), token.substring(eq + 1).trim());
+            } else if (!token.isEmpty()) {
+                Backend backend = backends.get(token);
+                if (backend == null) {
+                    throw new IllegalArgumentException("Unknown backend '" + token + "', available: " + backends.keySet());
+                }
+                selected.add(backend);
+            }
+        }
+        if (!matchers.isEmpty()) {
+            for (Backend backend : backends.values()) {
+                if (!selected.contains(backend) && backend.labels().entrySet().containsAll(matchers.entrySet())) {
+                    selected.add(backend);
+                }
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No backend matches '" + selector + "', available: " + backends.keySet());
+        }
+        return selected;
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private BackendHeadersFactory headers(String name, FederationConfig.Backend backend) {
+        FederationConfig.Auth auth = backend.auth();
+        if (auth.type() != FederationConfig.AuthType.NONE && backend.url().startsWith("http:")) {
+            LOG.warnf("Backend %s sends a bearer token over plain http", name);
+        }
+        switch (auth.type()) {
+            case TOKEN -> {
+                if (auth.token().isPresent()) {
+                    return BackendHeadersFactory.token(auth.token().get());
+                }
+            }
+            case TOKEN_FILE -> {
+                if (auth.tokenFile().isPresent()) {
+                    return BackendHeadersFactory.tokenFile(new BearerTokenFile(Path.of(auth.tokenFile().get()),
+                        authConfig.tokenRefresh(), "bearer token for backend " + name));
+                }
+            }
+            case NONE -> {
+                return BackendHeadersFactory.none();
+            }
+        }
+        LOG.warnf("Backend %s has auth type %s but no token configured, sending none", name, auth.type());
+        return BackendHeadersFactory.none();
+    }
+}
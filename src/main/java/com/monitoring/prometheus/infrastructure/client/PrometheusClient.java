@@ -3,12 +3,26 @@ package com.monitoring.prometheus.infrastructure.client;
 import com.monitoring.prometheus.infrastructure.dto.*;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
+import java.io.InputStream;
+import org.eclipse.microprofile.faulttolerance.Timeout;
 import org.eclipse.microprofile.rest.client.annotation.RegisterClientHeaders;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
+/**
+ * Prometheus HTTP API client.
+ *
+ * Each endpoint has its own timeout in milliseconds; override one with
+ * {@code <fully qualified class>/<method>/Timeout/value} in application.properties.
+ * For the *Stream methods it bounds the response headers only; callers bound
+ * reading the body with {@link DeadlineInputStream}.
+ *
+ * API errors are thrown as {@link PrometheusQueryException} by {@link PrometheusErrorMapper}.
+ */
 @Path("/api/v1")
 @RegisterRestClient(configKey = "prometheus-api")
 @RegisterClientHeaders(KubernetesBearerTokenHeaderFactory.class)
+@RegisterProvider(PrometheusErrorMapper.class)
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public interface PrometheusClient {
@@ -18,16 +32,29 @@ public interface PrometheusClient {
      */
     @GET
     @Path("/query")
+    @Timeout(30000)
     QueryResponseDto query(
         @QueryParam("query") String query,
         @QueryParam("time") String time
     );
 
+    /**
+     * Execute an instant PromQL query, returning the raw body for streaming decode.
+     */
+    @GET
+    @Path("/query")
+    @Timeout(30000)
+    InputStream queryStream(
+        @QueryParam("query") String query,
+        @QueryParam("time") String time
+    );
+
     /**
      * Execute a range PromQL query.
      */
     @GET
     @Path("/query_range")
+    @Timeout(60000)
     QueryResponseDto queryRange(
         @QueryParam("query") String query,
         @QueryParam("start") String start,
@@ -35,18 +62,55 @@ public interface PrometheusClient {
         @QueryParam("step") String step
     );
 
+    /**
+     * Execute a range PromQL query, returning the raw body for streaming decode.
+     */
+    @GET
+    @Path("/query_range")
+    @Timeout(60000)
+    InputStream queryRangeStream(
+        @QueryParam("query") String query,
+        @QueryParam("start") String start,
+        @QueryParam("end") String end,
+        @QueryParam("step") String step
+    );
+
     /**
      * Get the current state of scrape targets.
      */
     @GET
     @Path("/targets")
+    @Timeout(15000)
     TargetsResponseDto getTargets(@QueryParam("state") String state);
 
+    /**
+     * Get the current state of scrape targets, returning the raw body for streaming decode.
+     */
+    @GET
+    @Path("/targets")
+    @Timeout(15000)
+    InputStream getTargetsStream(@QueryParam("state") String state);
+
+    /**
+     * Find series matching a selector, returning the raw body for streaming decode.
+     * Prometheus returns at most limit series (0 for no limit).
+     */
+    @GET
+    @Path("/series")
+    @Timeout(15000)
+    InputStream getSeriesStream(
+        @QueryParam("match[]") String match,
+        @QueryParam("start") String start,
+        @QueryParam("end") String end,
+        @QueryParam("limit") Integer limit
+    );
+
     /**
      * Get alerting and recording rules.
      */
     @GET
     @Path("/rules")
+    @Timeout(15000)
     RulesResponseDto getRules(@QueryParam("type") String type);
 
     /**
@@ -54,6 +118,7 @@ public interface PrometheusClient {
      */
     @GET
     @Path("/alerts")
+    @Timeout(15000)
     AlertsResponseDto getAlerts();
 
     /**
@@ -61,6 +126,7 @@ public interface PrometheusClient {
      */
     @GET
     @Path("/status/buildinfo")
+    @Timeout(10000)
     Object getBuildInfo();
 
     /**
@@ -68,6 +134,7 @@ public interface PrometheusClient {
      */
     @GET
     @Path("/status/runtimeinfo")
+    @Timeout(10000)
     Object getRuntimeInfo();
 
     /**
@@ -75,6 +142,7 @@ public interface PrometheusClient {
      */
     @GET
     @Path("/status/config")
+    @Timeout(10000)
     Object getConfig();
 
     /**
@@ -82,12 +150,14 @@ public interface PrometheusClient {
      */
     @GET
     @Path("/label/{labelName}/values")
-    Object getLabelValues(@PathParam("labelName") String labelName);
+    @Timeout(15000)
+    LabelsResponseDto getLabelValues(@PathParam("labelName") String labelName);
 
     /**
      * Get all label names.
      */
     @GET
     @Path("/labels")
-    Object getLabels();
+    @Timeout(15000)
+    LabelsResponseDto getLabels();
 }
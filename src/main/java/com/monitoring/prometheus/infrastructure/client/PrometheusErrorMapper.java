@@ -0,0 +1,43 @@
+package com.monitoring.prometheus.infrastructure.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.rest.client.ext.ResponseExceptionMapper;
+
+/**
+ * Turns Prometheus API errors into {@link PrometheusQueryException}.
+ *
+ * Prometheus answers bad queries with 400, failed executions with 422 and
+ * timeouts with 503, each with a {"status":"error","errorType","error"} body.
+ * Responses without such a body (e.g. from a proxy) are left to the default
+ * mapper and surface as WebApplicationException.
+ */
+public class PrometheusErrorMapper implements ResponseExceptionMapper<PrometheusQueryException> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_BODY_CHARS = 64 * 1024;
+
+    @Override
+    public PrometheusQueryException toThrowable(Response response) {
+        if (!response.hasEntity()) {
+            return null;
+        }
+        try {
+            response.bufferEntity();
+            String body = response.readEntity(String.class);
+            if (body == null || body.isEmpty() || body.length() > MAX_BODY_CHARS) {
+                return null;
+            }
+            JsonNode json = MAPPER.readTree(body);
+            if (json == null || !"error".equals(json.path("status").asText())) {
+                return null;
+            }
+            return new PrometheusQueryException(response.getStatus(),
+                json.path("errorType").asText("unknown"), json.path("error").asText(""));
+        } catch (Exception e) {
+            // Not a Prometheus error body
+            return null;
+        }
+    }
+}
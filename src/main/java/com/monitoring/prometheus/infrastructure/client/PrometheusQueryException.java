@@ -0,0 +1,44 @@
+package com.monitoring.prometheus.infrastructure.client;
+
+/**
+ * Thrown when Prometheus answers a query with a non-success status.
+ */
+public class PrometheusQueryException extends RuntimeException {
+
+    private final int httpStatus;
+    private final String errorType;
+    private final String error;
+
+    public PrometheusQueryException(String errorType, String error) {
+        this(0, errorType, error);
+    }
+
+    /**
+     * @param httpStatus HTTP status of the response, 0 when the error came in a successful response
+     */
+    public PrometheusQueryException(int httpStatus, String errorType, String error) {
+        super(errorType + " - " + error);
+        this.httpStatus = httpStatus;
+        this.errorType = errorType;
+        this.error = error;
+    }
+
+    public int httpStatus() {
+        return httpStatus;
+    }
+
+    public String errorType() {
+        return errorType;
+    }
+
+    public String error() {
+        return error;
+    }
+
+    /**
+     * Whether the query itself was at fault (bad PromQL, execution limits) rather than the server.
+     */
+    public boolean isClientError() {
+        return httpStatus >= 400 && httpStatus < 500 && httpStatus != 429;
+    }
+}
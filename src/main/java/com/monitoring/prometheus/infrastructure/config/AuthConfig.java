@@ -0,0 +1,22 @@
+package com.monitoring.prometheus.infrastructure.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+@ConfigMapping(prefix = "prometheus.auth")
+public interface AuthConfig {
+
+    /**
+     * ServiceAccount token sent as bearer token to Prometheus.
+     */
+    @WithDefault("/var/run/secrets/kubernetes.io/serviceaccount/token")
+    String tokenPath();
+
+    /**
+     * How often the token file is re-read; projected tokens are rotated by the kubelet.
+     */
+    @WithDefault("1m")
+    Duration tokenRefresh();
+}
@@ -0,0 +1,99 @@
+package com.monitoring.prometheus.infrastructure.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+@ConfigMapping(prefix = "prometheus.cache")
+public interface CacheConfig {
+
+    /**
+     * Serve repeated query and queryRange calls from memory.
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * How long a cached result is served before it is fetched again.
+     */
+    @WithDefault("30s")
+    Duration ttl();
+
+    /**
+     * Upper bound of the estimated heap used by cached results.
+     */
+    @WithDefault("67108864")
+    long maxBytes();
+
+    /**
+     * Instant queries are evaluated at "now" rounded down to this resolution,
+     * so calls within the same window share a cache entry.
+     */
+    @WithDefault("15s")
+    Duration instantResolution();
+
+    /**
+     * Incremental cache of range query extents.
+     */
+    Extent extent();
+
+    interface Extent {
+
+        /**
+         * Reuse overlapping range results and only fetch the newly elapsed tail.
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Samples newer than this are always refetched, since Prometheus may still be ingesting them.
+         */
+        @WithDefault("1m")
+        Duration maxFreshness();
+
+        /**
+         * Upper bound of the estimated heap used by cached extents.
+         */
+        @WithDefault("134217728")
+        long maxBytes();
+    }
+
+    /**
+     * Disk tier of the extent cache, kept across restarts.
+     */
+    Disk disk();
+
+    interface Disk {
+
+        /**
+         * Persist range extents to memory-mapped segment files.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * Directory of the segment files.
+         */
+        @WithDefault("${java.io.tmpdir}/mcp-prometheus-cache")
+        String path();
+
+        /**
+         * Upper bound of the segment files on disk; the oldest segments are deleted first.
+         */
+        @WithDefault("1073741824")
+        long maxBytes();
+
+        /**
+         * Size at which a new segment file is started.
+         */
+        @WithDefault("67108864")
+        long segmentBytes();
+
+        /**
+         * Entries written longer ago than this are ignored.
+         */
+        @WithDefault("7d")
+        Duration maxAge();
+    }
+}
@@ -0,0 +1,75 @@
+package com.monitoring.prometheus.infrastructure.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+@ConfigMapping(prefix = "prometheus.federation")
+public interface FederationConfig {
+
+    /**
+     * Additional named Prometheus backends, e.g. one per cluster.
+     */
+    Map<String, Backend> backends();
+
+    /**
+     * Time a backend is given to answer before its result is left out.
+     */
+    @WithDefault("10s")
+    Duration timeout();
+
+    /**
+     * Label added to every merged series, holding the backend name.
+     */
+    @WithDefault("cluster")
+    String label();
+
+    interface Backend {
+
+        String url();
+
+        /**
+         * Overrides the shared timeout for this backend.
+         */
+        Optional<Duration> timeout();
+
+        /**
+         * Labels used to select backends, e.g. env=prod.
+         */
+        Map<String, String> labels();
+
+        /**
+         * Credentials sent to this backend. The ServiceAccount token of the
+         * default client is never forwarded.
+         */
+        Auth auth();
+    }
+
+    interface Auth {
+
+        /**
+         * none, token (a static bearer token) or token-file (re-read like the ServiceAccount token).
+         */
+        @WithDefault("none")
+        AuthType type();
+
+        /**
+         * Bearer token for type=token.
+         */
+        Optional<String> token();
+
+        /**
+         * File holding the bearer token for type=token-file.
+         */
+        Optional<String> tokenFile();
+    }
+
+    enum AuthType {
+        NONE,
+        TOKEN,
+        TOKEN_FILE
+    }
+}
@@ -0,0 +1,107 @@
+package com.monitoring.prometheus.infrastructure.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+@ConfigMapping(prefix = "prometheus.limit")
+public interface LimitConfig {
+
+    /**
+     * Bound the number of concurrent requests forwarded to Prometheus.
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * Lane for instant queries and metadata lookups.
+     */
+    Cheap cheap();
+
+    /**
+     * Lane for range queries.
+     */
+    Expensive expensive();
+
+    interface Lane {
+
+        /**
+         * Concurrency limit at startup; adapted between min-limit and max-limit.
+         */
+        int initialLimit();
+
+        int minLimit();
+
+        int maxLimit();
+
+        /**
+         * Calls allowed to wait for a slot; further calls fail immediately.
+         */
+        int maxQueue();
+
+        /**
+         * How long a queued call waits for a slot before failing.
+         */
+        Duration queueTimeout();
+
+        /**
+         * Responses slower than this shrink the limit; faster ones let it grow.
+         */
+        Duration latencyThreshold();
+    }
+
+    interface Cheap extends Lane {
+
+        @Override
+        @WithDefault("16")
+        int initialLimit();
+
+        @Override
+        @WithDefault("4")
+        int minLimit();
+
+        @Override
+        @WithDefault("64")
+        int maxLimit();
+
+        @Override
+        @WithDefault("100")
+        int maxQueue();
+
+        @Override
+        @WithDefault("5s")
+        Duration queueTimeout();
+
+        @Override
+        @WithDefault("2s")
+        Duration latencyThreshold();
+    }
+
+    interface Expensive extends Lane {
+
+        @Override
+        @WithDefault("4")
+        int initialLimit();
+
+        @Override
+        @WithDefault("1")
+        int minLimit();
+
+        @Override
+        @WithDefault("16")
+        int maxLimit();
+
+        @Override
+        @WithDefault("20")
+        int maxQueue();
+
+        @Override
+        @WithDefault("10s")
+        Duration queueTimeout();
+
+        @Override
+        @WithDefault("15s")
+        Duration latencyThreshold();
+    }
+}
@@ -0,0 +1,40 @@
+package com.monitoring.prometheus.infrastructure.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+@ConfigMapping(prefix = "prometheus.metadata")
+public interface MetadataConfig {
+
+    /**
+     * Refresh the metric and label index in the background.
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * How often the index is rebuilt from /api/v1/labels and /api/v1/label/{name}/values.
+     */
+    @WithDefault("5m")
+    Duration refreshInterval();
+
+    /**
+     * Maximum number of metric names kept in the index.
+     */
+    @WithDefault("50000")
+    int maxMetrics();
+
+    /**
+     * Maximum number of label names whose values are indexed.
+     */
+    @WithDefault("200")
+    int maxLabels();
+
+    /**
+     * Maximum number of values kept per label; larger labels are looked up on demand.
+     */
+    @WithDefault("2000")
+    int maxValuesPerLabel();
+}
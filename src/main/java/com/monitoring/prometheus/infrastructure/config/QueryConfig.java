@@ -0,0 +1,181 @@
+package com.monitoring.prometheus.infrastructure.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+@ConfigMapping(prefix = "prometheus.query")
+public interface QueryConfig {
+
+    /**
+     * Splitting of long range queries into concurrently executed sub-ranges.
+     */
+    Split split();
+
+    interface Split {
+
+        /**
+         * Split range queries longer than the interval.
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Length of each sub-range; rounded to a whole number of steps.
+         */
+        @WithDefault("1d")
+        Duration interval();
+
+        /**
+         * Maximum number of sub-range requests in flight for one query.
+         */
+        @WithDefault("4")
+        int maxParallelism();
+    }
+
+    /**
+     * Coalescing of identical concurrent requests into one Prometheus call.
+     */
+    Coalesce coalesce();
+
+    interface Coalesce {
+
+        /**
+         * Share one in-flight request between identical concurrent calls.
+         */
+        @WithDefault("true")
+        boolean enabled();
+    }
+
+    /**
+     * Batches of expressions executed by one queryBatch call.
+     */
+    Batch batch();
+
+    interface Batch {
+
+        /**
+         * Maximum number of expressions in one batch.
+         */
+        @WithDefault("20")
+        int maxQueries();
+
+        /**
+         * Maximum number of expressions of one batch in flight.
+         */
+        @WithDefault("8")
+        int maxParallelism();
+    }
+
+    /**
+     * Local evaluation of queries composed from cached results.
+     */
+    Local local();
+
+    interface Local {
+
+        /**
+         * Answer queries whose subexpressions are all cached without calling Prometheus.
+         */
+        @WithDefault("false")
+        boolean enabled();
+    }
+
+    /**
+     * Cost guardrails checked before a query is sent.
+     */
+    Cost cost();
+
+    interface Cost {
+
+        /**
+         * Estimate query cost from selector cardinality before execution.
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Queries whose non-aggregated selectors match more series are rejected;
+         * aggregated ones only get a warning.
+         */
+        @WithDefault("20000")
+        int maxSeries();
+
+        /**
+         * Range queries shorter than this are not estimated.
+         */
+        @WithDefault("1h")
+        Duration minRange();
+
+        /**
+         * Range queries are given a wider step when series x points would exceed this.
+         */
+        @WithDefault("2000000")
+        long maxPoints();
+
+        /**
+         * Points per series allowed before the step is widened; Prometheus itself rejects more than 11000.
+         */
+        @WithDefault("11000")
+        int maxPointsPerSeries();
+
+        /**
+         * How long the series count of a selector is reused.
+         */
+        @WithDefault("5m")
+        Duration cardinalityTtl();
+    }
+
+    /**
+     * Change-point and spike detection of analyzeRange.
+     */
+    Analysis analysis();
+
+    interface Analysis {
+
+        /**
+         * CUSUM threshold, in standard deviations, at which a sustained shift is reported.
+         */
+        @WithDefault("5")
+        double changeThreshold();
+
+        /**
+         * z-score from which a single sample is reported as a spike.
+         */
+        @WithDefault("4")
+        double spikeThreshold();
+
+        /**
+         * Maximum number of anomalous series shown.
+         */
+        @WithDefault("10")
+        int maxSeries();
+    }
+
+    /**
+     * Result budget applied to query and queryRange output.
+     */
+    Budget budget();
+
+    interface Budget {
+
+        /**
+         * Maximum number of series returned; the rest are reported as truncated. 0 disables.
+         */
+        @WithDefault("50")
+        int maxSeries();
+
+        /**
+         * Range series are downsampled (LTTB) to this many points. 0 shows the last 5 samples instead.
+         */
+        @WithDefault("20")
+        int maxPoints();
+
+        /**
+         * Series ranking when truncating: value, variance, or auto (value for instant, variance for range).
+         */
+        @WithDefault("auto")
+        String ranking();
+    }
+}
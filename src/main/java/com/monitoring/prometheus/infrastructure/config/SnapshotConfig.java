@@ -0,0 +1,34 @@
+package com.monitoring.prometheus.infrastructure.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+@ConfigMapping(prefix = "prometheus.snapshot")
+public interface SnapshotConfig {
+
+    /**
+     * Poll targets and rules in the background and serve the tools from the snapshot.
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * How often targets and rules are polled.
+     */
+    @WithDefault("30s")
+    Duration refreshInterval();
+
+    /**
+     * Snapshots older than this are refreshed before being served.
+     */
+    @WithDefault("2m")
+    Duration maxAge();
+
+    /**
+     * Number of detected changes kept for getChanges.
+     */
+    @WithDefault("1000")
+    int maxChanges();
+}
@@ -0,0 +1,23 @@
+package com.monitoring.prometheus.infrastructure.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+@ConfigMapping(prefix = "prometheus.startup")
+public interface StartupConfig {
+
+    /**
+     * Open the connections to Prometheus and the federation backends and prepare
+     * the JSON deserializers at startup instead of on the first tool call.
+     */
+    @WithDefault("true")
+    boolean warmup();
+
+    /**
+     * Build the metadata index at startup. Off by default: a stdio server is launched per
+     * session, and sessions that never search should not cost Prometheus an index build.
+     * When disabled it is built on first use.
+     */
+    @WithDefault("false")
+    boolean preloadMetadata();
+}
@@ -0,0 +1,44 @@
+package com.monitoring.prometheus.infrastructure.decoder;
+
+import com.monitoring.prometheus.domain.model.Labels;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.domain.model.Series;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SampleHandler that collects samples into the columnar {@link QueryResult} model.
+ */
+public class ColumnarSampleHandler implements SampleHandler {
+
+    private final List<Series> series = new ArrayList<>();
+    private String resultType;
+    private Series.Builder current;
+
+    @Override
+    public void resultType(String resultType) {
+        this.resultType = resultType;
+    }
+
+    @Override
+    public void beginSeries(Map<String, String> labels) {
+        current = new Series.Builder(Labels.of(labels));
+    }
+
+    @Override
+    public void sample(long timestampMillis, double value) {
+        current.add(timestampMillis, value);
+    }
+
+    @Override
+    public void endSeries() {
+        series.add(current.build());
+        current = null;
+    }
+
+    public QueryResult result() {
+        return new QueryResult(resultType, series);
+    }
+}
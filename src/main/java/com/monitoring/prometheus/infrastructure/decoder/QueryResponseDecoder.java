@@ -0,0 +1,208 @@
+package com.monitoring.prometheus.infrastructure.decoder;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.infrastructure.client.PrometheusQueryException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streaming decoder for /api/v1/query and /api/v1/query_range response bodies.
+ *
+ * Walks the JSON once with a {@link JsonParser} and pushes every sample to a
+ * {@link SampleHandler} as primitives, so no per-sample objects are created.
+ * The default handler collects the samples into the columnar {@link QueryResult}.
+ */
+@ApplicationScoped
+public class QueryResponseDecoder {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Status fields of a query response; the samples go to the handler.
+     */
+    public record QueryStatus(
+        String status,
+        String errorType,
+        String error
+    ) {
+        public boolean isSuccess() {
+            return "success".equals(status);
+        }
+    }
+
+    /**
+     * Decode a response body into the columnar model.
+     *
+     * @throws PrometheusQueryException if Prometheus reported a failed query
+     */
+    public QueryResult decode(InputStream body) throws IOException {
+        ColumnarSampleHandler handler = new ColumnarSampleHandler();
+        QueryStatus status = decode(body, handler);
+        if (!status.isSuccess()) {
+            throw new PrometheusQueryException(status.errorType(), status.error());
+        }
+        return handler.result();
+    }
+
+    public QueryStatus decode(InputStream body, SampleHandler handler) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            String status = null;
+            String errorType = null;
+            String error = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "status" -> status = parser.getValueAsString();
+                    case "errorType" -> errorType = parser.getValueAsString();
+                    case "error" -> error = parser.getValueAsString();
+                    case "data" -> {
+                        if (token == JsonToken.START_OBJECT) {
+                            readData(parser, handler);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            return new QueryStatus(status, errorType, error);
+        }
+    }
+
+    /**
+     * Parse a Prometheus sample value, which is encoded as a string and may be NaN or +/-Inf.
+     * Values of string results are not numeric and decode as NaN.
+     */
+    public static double parseSampleValue(String value) {
+        return switch (value) {
+            case "+Inf", "Inf" -> Double.POSITIVE_INFINITY;
+            case "-Inf" -> Double.NEGATIVE_INFINITY;
+            case "NaN" -> Double.NaN;
+            default -> {
+                try {
+                    yield Double.parseDouble(value);
+                } catch (NumberFormatException e) {
+                    yield Double.NaN;
+                }
+            }
+        };
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private void readData(JsonParser parser, SampleHandler handler) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("resultType".equals(field)) {
+                handler.resultType(parser.getValueAsString());
+            } else if ("result".equals(field) && token == JsonToken.START_ARRAY) {
+                readResult(parser, handler);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readResult(JsonParser parser, SampleHandler handler) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token != JsonToken.START_OBJECT && token != JsonToken.END_ARRAY) {
+            // Scalar and string results are a bare [timestamp, "value"] pair
+            handler.beginSeries(Map.of());
+            long timestamp = toMillis(parser.getDoubleValue());
+            parser.nextToken();
+            handler.sample(timestamp, parseSampleValue(parser.getText()));
+            handler.endSeries();
+            expect(parser.nextToken(), JsonToken.END_ARRAY);
+            return;
+        }
+
+        while (token == JsonToken.START_OBJECT) {
+            readSeries(parser, handler);
+            token = parser.nextToken();
+        }
+        expect(token, JsonToken.END_ARRAY);
+    }
+
+    private void readSeries(JsonParser parser, SampleHandler handler) throws IOException {
+        boolean started = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "metric" -> {
+                    handler.beginSeries(readLabels(parser, token));
+                    started = true;
+                }
+                case "value" -> {
+                    if (!started) {
+                        handler.beginSeries(Map.of());
+                        started = true;
+                    }
+                    readSample(parser, token, handler);
+                }
+                case "values" -> {
+                    if (!started) {
+                        handler.beginSeries(Map.of());
+                        started = true;
+                    }
+                    expect(token, JsonToken.START_ARRAY);
+                    JsonToken next;
+                    while ((next = parser.nextToken()) == JsonToken.START_ARRAY) {
+                        readSample(parser, next, handler);
+                    }
+                    expect(next, JsonToken.END_ARRAY);
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (started) {
+            handler.endSeries();
+        }
+    }
+
+    private Map<String, String> readLabels(JsonParser parser, JsonToken token) throws IOException {
+        expect(token, JsonToken.START_OBJECT);
+        Map<String, String> labels = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            labels.put(name, parser.getText());
+        }
+        return labels;
+    }
+
+    private void readSample(JsonParser parser, JsonToken token, SampleHandler handler) throws IOException {
+        expect(token, JsonToken.START_ARRAY);
+        parser.nextToken();
+        long timestamp = toMillis(parser.getDoubleValue());
+        parser.nextToken();
+        double value = parseSampleValue(parser.getText());
+        expect(parser.nextToken(), JsonToken.END_ARRAY);
+        handler.sample(timestamp, value);
+    }
+
+    private static long toMillis(double seconds) {
+        return Math.round(seconds * 1000.0);
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Malformed Prometheus response: expected " + expected + " but got " + actual);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.monitoring.prometheus.infrastructure.decoder;
+
+import java.util.Map;
+
+/**
+ * Callback receiving the samples of a Prometheus query result as they are parsed.
+ *
+ * Implementations decide what to retain; the decoder never builds the full tree.
+ */
+public interface SampleHandler {
+
+    /**
+     * Called once with the result type (matrix, vector, scalar or string).
+     */
+    default void resultType(String resultType) {
+    }
+
+    /**
+     * Called when a new series starts.
+     */
+    void beginSeries(Map<String, String> labels);
+
+    /**
+     * Called for every sample of the current series.
+     */
+    void sample(long timestampMillis, double value);
+
+    /**
+     * Called when the current series ends.
+     */
+    default void endSeries() {
+    }
+}
@@ -0,0 +1,61 @@
+package com.monitoring.prometheus.infrastructure.decoder;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monitoring.prometheus.infrastructure.client.PrometheusQueryException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the series of an /api/v1/series response without materializing their label sets.
+ */
+@ApplicationScoped
+public class SeriesCountDecoder {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * @throws PrometheusQueryException if Prometheus reported an error
+     */
+    public long count(InputStream body) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Malformed Prometheus response: expected an object");
+            }
+            String status = null;
+            String errorType = null;
+            String error = null;
+            long count = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "status" -> status = parser.getValueAsString();
+                    case "errorType" -> errorType = parser.getValueAsString();
+                    case "error" -> error = parser.getValueAsString();
+                    case "data" -> {
+                        if (token == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                parser.skipChildren();
+                                count++;
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            if (!"success".equals(status)) {
+                throw new PrometheusQueryException(errorType, error);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.monitoring.prometheus.infrastructure.decoder;
+
+import com.monitoring.prometheus.infrastructure.dto.TargetsResponseDto.ActiveTargetDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Filter on active targets, applied while the /targets response is decoded.
+ *
+ * @param scrapePool exact scrape pool, or null for any
+ * @param health     exact health (up, down, unknown), or null for any
+ * @param matchers   label matchers that must all match
+ */
+public record TargetFilter(
+    String scrapePool,
+    String health,
+    List<LabelMatcher> matchers
+) {
+    public static final TargetFilter ALL = new TargetFilter(null, null, List.of());
+
+    /**
+     * A label=value, label!=value, label=~regex or label!~regex matcher.
+     */
+    public record LabelMatcher(String name, String operator, String value, Pattern pattern) {
+
+        boolean matches(Map<String, String> labels) {
+            String actual = labels != null ? labels.getOrDefault(name, "") : "";
+            return switch (operator) {
+                case "!=" -> !actual.equals(value);
+                case "=~" -> pattern.matcher(actual).matches();
+                case "!~" -> !pattern.matcher(actual).matches();
+                default -> actual.equals(value);
+            };
+        }
+    }
+
+    /**
+     * Build a filter from tool arguments; blank arguments match anything.
+     *
+     * @param labelSelector comma-separated matchers, e.g. namespace=prod,job=~api.*
+     */
+    public static TargetFilter of(String scrapePool, String health, String labelSelector) {
+        List<LabelMatcher> matchers = new ArrayList<>();
+        if (labelSelector != null && !labelSelector.isBlank()) {
+            for (String part : labelSelector.split(",")) {
+                String matcher = part.trim();
+                if (!matcher.isEmpty()) {
+                    matchers.add(parseMatcher(matcher));
+                }
+            }
+        }
+        return new TargetFilter(blankToNull(scrapePool), blankToNull(health), List.copyOf(matchers));
+    }
+
+    public boolean isEmpty() {
+        return scrapePool == null && health == null && matchers.isEmpty();
+    }
+
+    public boolean matches(ActiveTargetDto target) {
+        if (scrapePool != null && !scrapePool.equals(target.scrapePool())) {
+            return false;
+        }
+        if (health != null && !health.equalsIgnoreCase(target.health())) {
+            return false;
+        }
+        for (LabelMatcher matcher : matchers) {
+            if (!matcher.matches(target.labels())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LabelMatcher parseMatcher(String matcher) {
+        for (String operator : List.of("=~", "!~", "!=", "=")) {
+            int index = matcher.indexOf(operator);
+            if (index > 0) {
+                String name = matcher.substring(0, index).trim();
+                String value = unquote(matcher.substring(index + operator.length()).trim());
+                Pattern pattern = operator.contains("~") ? Pattern.compile(value) : null;
+                return new LabelMatcher(name, operator, value, pattern);
+            }
+        }
+        throw new IllegalArgumentException("Invalid label matcher: " + matcher);
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && (value.startsWith("\"") && value.endsWith("\"")
+                || value.startsWith("'") && value.endsWith("'"))) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
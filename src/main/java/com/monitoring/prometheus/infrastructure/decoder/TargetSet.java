@@ -0,0 +1,46 @@
+package com.monitoring.prometheus.infrastructure.decoder;
+
+import com.monitoring.prometheus.infrastructure.dto.TargetsResponseDto.ActiveTargetDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Decoded /targets result: the matching active targets, unhealthy first, and the
+ * number of dropped targets, which are counted but never materialized.
+ *
+ * @param activeTargets  matching active targets without their discovered labels
+ * @param totalActive    number of active targets before filtering
+ * @param droppedTargets number of dropped targets
+ */
+public record TargetSet(
+    String status,
+    List<ActiveTargetDto> activeTargets,
+    int totalActive,
+    int droppedTargets
+) {
+    private static final Comparator<ActiveTargetDto> UNHEALTHY_FIRST =
+        Comparator.comparingInt(target -> "up".equals(target.health()) ? 1 : 0);
+
+    public static TargetSet of(String status, List<ActiveTargetDto> activeTargets, int totalActive, int droppedTargets) {
+        List<ActiveTargetDto> sorted = new ArrayList<>(activeTargets);
+        sorted.sort(UNHEALTHY_FIRST);
+        return new TargetSet(status, List.copyOf(sorted), totalActive, droppedTargets);
+    }
+
+    public boolean isSuccess() {
+        return "success".equals(status);
+    }
+
+    /**
+     * Apply a filter to an already decoded set, e.g. a cached snapshot.
+     */
+    public TargetSet filter(TargetFilter filter) {
+        if (filter.isEmpty()) {
+            return this;
+        }
+        List<ActiveTargetDto> matching = activeTargets.stream().filter(filter::matches).toList();
+        return new TargetSet(status, matching, totalActive, droppedTargets);
+    }
+}
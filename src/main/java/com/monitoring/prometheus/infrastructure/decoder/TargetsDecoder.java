@@ -0,0 +1,127 @@
+package com.monitoring.prometheus.infrastructure.decoder;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monitoring.prometheus.infrastructure.dto.TargetsResponseDto.ActiveTargetDto;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming decoder for /api/v1/targets response bodies.
+ *
+ * Dropped targets are only counted and discoveredLabels are skipped, so the large
+ * service-discovery maps are never materialized; the filter is applied per target while parsing.
+ */
+@ApplicationScoped
+public class TargetsDecoder {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    public TargetSet decode(InputStream body, TargetFilter filter) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Malformed Prometheus response: expected an object");
+            }
+            String status = null;
+            List<ActiveTargetDto> active = new ArrayList<>();
+            int[] counts = new int[2];
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("status".equals(field)) {
+                    status = parser.getValueAsString();
+                } else if ("data".equals(field) && token == JsonToken.START_OBJECT) {
+                    readData(parser, filter, active, counts);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return TargetSet.of(status, active, counts[0], counts[1]);
+        }
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private void readData(JsonParser parser, TargetFilter filter, List<ActiveTargetDto> active, int[] counts)
+            throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("activeTargets".equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    ActiveTargetDto target = readActiveTarget(parser);
+                    counts[0]++;
+                    if (filter.matches(target)) {
+                        active.add(target);
+                    }
+                }
+            } else if ("droppedTargets".equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    counts[1]++;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private ActiveTargetDto readActiveTarget(JsonParser parser) throws IOException {
+        Map<String, String> labels = null;
+        String scrapePool = null;
+        String scrapeUrl = null;
+        String globalUrl = null;
+        String lastError = null;
+        String lastScrape = null;
+        String lastScrapeDuration = null;
+        String health = null;
+        String scrapeInterval = null;
+        String scrapeTimeout = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "labels" -> labels = readLabels(parser, token);
+                case "scrapePool" -> scrapePool = parser.getValueAsString();
+                case "scrapeUrl" -> scrapeUrl = parser.getValueAsString();
+                case "globalUrl" -> globalUrl = parser.getValueAsString();
+                case "lastError" -> lastError = parser.getValueAsString();
+                case "lastScrape" -> lastScrape = parser.getValueAsString();
+                case "lastScrapeDuration" -> lastScrapeDuration = parser.getValueAsString();
+                case "health" -> health = parser.getValueAsString();
+                case "scrapeInterval" -> scrapeInterval = parser.getValueAsString();
+                case "scrapeTimeout" -> scrapeTimeout = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+        return new ActiveTargetDto(null, labels, scrapePool, scrapeUrl, globalUrl, lastError, lastScrape,
+            lastScrapeDuration, health, scrapeInterval, scrapeTimeout);
+    }
+
+    private Map<String, String> readLabels(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Map<String, String> labels = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            labels.put(name, parser.getText());
+        }
+        return labels;
+    }
+}
@@ -1,9 +1,11 @@
 package com.monitoring.prometheus.infrastructure.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import java.util.List;
 import java.util.Map;
 
+@RegisterForReflection(ignoreNested = false)
 @JsonIgnoreProperties(ignoreUnknown = true)
 public record AlertsResponseDto(
     String status,
@@ -0,0 +1,14 @@
+package com.monitoring.prometheus.infrastructure.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.util.List;
+
+@RegisterForReflection(ignoreNested = false)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record LabelsResponseDto(
+    String status,
+    List<String> data,
+    String errorType,
+    String error
+) {}
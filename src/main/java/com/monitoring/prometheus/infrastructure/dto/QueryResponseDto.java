@@ -1,8 +1,10 @@
 package com.monitoring.prometheus.infrastructure.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import java.util.List;
 
+@RegisterForReflection(ignoreNested = false)
 @JsonIgnoreProperties(ignoreUnknown = true)
 public record QueryResponseDto(
     String status,
@@ -0,0 +1,104 @@
+package com.monitoring.prometheus.infrastructure.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response size and decode time of Prometheus API responses, per endpoint.
+ *
+ * Request latency and status codes of the REST client are recorded by
+ * Quarkus as http.client.requests; this adds what happens to the body.
+ */
+@ApplicationScoped
+public class ClientMetrics {
+
+    @Inject
+    MeterRegistry registry;
+
+    /**
+     * Decodes a response body.
+     */
+    @FunctionalInterface
+    public interface BodyDecoder<T> {
+        T decode(InputStream body) throws IOException;
+    }
+
+    /**
+     * Decode the body, recording prometheus.client.decode and prometheus.client.response.bytes.
+     *
+     * @param endpoint API endpoint, e.g. query_range
+     */
+    public <T> T decode(String endpoint, InputStream body, BodyDecoder<T> decoder) throws IOException {
+        CountingInputStream counting = new CountingInputStream(body);
+        long startNanos = System.nanoTime();
+        try {
+            return decoder.decode(counting);
+        } finally {
+            Timer.builder("prometheus.client.decode")
+                .description("Time spent reading and decoding Prometheus responses")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("prometheus.client.response.bytes")
+                .description("Size of Prometheus response bodies")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint)
+                .register(registry)
+                .record(counting.count);
+        }
+    }
+
+    /**
+     * Record the time spent rendering a tool answer in the given output format.
+     */
+    public void recordFormatting(String format, long nanos) {
+        Timer.builder("mcp.format")
+            .description("Time spent formatting tool answers")
+            .tag("format", format)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.monitoring.prometheus.infrastructure.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Big-endian bit stream reader over a region of a (memory-mapped) buffer, used by {@link SeriesCodec}.
+ *
+ * Bits are taken from a 64-bit word refilled eight bytes at a time, so a read costs
+ * a shift and a mask instead of one buffer access per bit.
+ */
+final class BitInput {
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int nextByte;
+    /** Unread bits, left-aligned. */
+    private long word;
+    private int available;
+    private long bitsRead;
+
+    BitInput(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.nextByte = offset;
+    }
+
+    boolean readBit() {
+        if (available == 0) {
+            refill();
+        }
+        boolean bit = word < 0;
+        word <<= 1;
+        available--;
+        bitsRead++;
+        return bit;
+    }
+
+    /**
+     * Read count bits (0 to 64), most significant first.
+     */
+    long readBits(int count) {
+        if (count == 0) {
+            return 0;
+        }
+        if (count <= available) {
+            return take(count);
+        }
+        int low = count - available;
+        long high = available > 0 ? take(available) : 0;
+        refill();
+        return low == 64 ? take(64) : (high << low) | take(low);
+    }
+
+    /**
+     * Bytes consumed so far, rounded up to whole bytes.
+     */
+    int bytesRead() {
+        return (int) ((bitsRead + 7) >>> 3);
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private long take(int count) {
+        long value = word >>> (64 - count);
+        word = count == 64 ? 0 : word << count;
+        available -= count;
+        bitsRead += count;
+        return value;
+    }
+
+    /**
+     * Load the next word; near the end of the buffer only the bytes that remain.
+     */
+    private void refill() {
+        if (nextByte + Long.BYTES <= limit) {
+            word = buffer.getLong(nextByte);
+            nextByte += Long.BYTES;
+            available = 64;
+            return;
+        }
+        if (nextByte >= limit) {
+            throw new IndexOutOfBoundsException("Read past the end of the encoded data");
+        }
+        word = 0;
+        available = 0;
+        while (nextByte < limit) {
+            word |= (buffer.get(nextByte++) & 0xFFL) << (56 - available);
+            available += 8;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.monitoring.prometheus.infrastructure.store;
+
+import java.util.Arrays;
+
+/**
+ * Growable big-endian bit stream writer used by {@link SeriesCodec}.
+ */
+final class BitOutput {
+
+    private byte[] buffer;
+    private long bitPosition;
+
+    BitOutput(int expectedBytes) {
+        this.buffer = new byte[Math.max(16, expectedBytes)];
+    }
+
+    void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            int index = (int) (bitPosition >>> 3);
+            buffer[index] |= (byte) (0x80 >>> (bitPosition & 7));
+        }
+        bitPosition++;
+    }
+
+    /**
+     * Write the low count bits of value, most significant first.
+     */
+    void writeBits(long value, int count) {
+        ensureCapacity(count);
+        for (int i = count - 1; i >= 0; i--) {
+            if (((value >>> i) & 1L) != 0) {
+                int index = (int) (bitPosition >>> 3);
+                buffer[index] |= (byte) (0x80 >>> (bitPosition & 7));
+            }
+            bitPosition++;
+        }
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, (int) ((bitPosition + 7) >>> 3));
+    }
+
+    private void ensureCapacity(int bits) {
+        long required = (bitPosition + bits + 7) >>> 3;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.max(required, buffer.length + (buffer.length >> 1)));
+        }
+    }
+}
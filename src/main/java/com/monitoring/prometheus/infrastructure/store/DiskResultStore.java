@@ -0,0 +1,425 @@
+package com.monitoring.prometheus.infrastructure.store;
+
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.infrastructure.config.CacheConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Disk tier of the result caches that survives restarts.
+ *
+ * Results are appended to segment files as records of
+ * [magic, body length, CRC32 | written-at, start, end, key, {@link SeriesCodec} payload].
+ * Each segment is memory-mapped once: the active one read-write at its full
+ * segment size, records are copied into the mapping, and reads are served from
+ * the page cache without occupying heap. Segments found on startup are sealed
+ * and a new active segment is started. An in-memory index maps each key to its
+ * latest record and is rebuilt by scanning the segments on startup; a torn
+ * record at the end of the last segment is truncated. Whenever a write takes
+ * the total size over the budget, whole segments are deleted oldest first.
+ *
+ * Writes are not fsynced: the store is a cache, and a record lost in a crash is simply fetched again.
+ * {@link #putAsync} encodes and writes on a background thread so callers never wait for the disk.
+ */
+@ApplicationScoped
+public class DiskResultStore {
+
+    private static final Logger LOG = Logger.getLogger(DiskResultStore.class);
+    private static final int MAGIC = 0x50524F4D;
+    private static final int HEADER_BYTES = 12;
+    private static final int FIXED_BODY_BYTES = 26;
+    private static final String SUFFIX = ".seg";
+    private static final int MAX_PENDING_WRITES = 64;
+
+    @Inject
+    CacheConfig config;
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private volatile boolean enabled;
+    private long totalBytes;
+    private ExecutorService writer;
+
+    /**
+     * A stored result and the window it covers.
+     */
+    public record Entry(long startMillis, long endMillis, long writtenAtMillis, QueryResult result) {}
+
+    public record Stats(int segments, int entries, long bytes, long reads, long writes) {}
+
+    private record Location(Segment segment, int offset, int length, long writtenAtMillis,
+                            long startMillis, long endMillis) {}
+
+    @PostConstruct
+    void open() {
+        CacheConfig.Disk disk = config.disk();
+        if (!disk.enabled()) {
+            return;
+        }
+        try {
+            Path directory = Path.of(disk.path());
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+            }
+            for (Path file : files) {
+                Segment segment = Segment.openSealed(file, segmentId(file));
+                scan(segment);
+                if (segment.size == 0) {
+                    segment.close();
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                segments.addLast(segment);
+                totalBytes += segment.size;
+            }
+            // Appends always go to a fresh segment mapped at its final size
+            roll();
+            writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_WRITES),
+                Thread.ofVirtual().name("disk-cache-writer").factory(),
+                (task, executor) -> LOG.debug("Disk cache writer busy, dropping write"));
+            enabled = true;
+            LOG.infof("Disk cache at %s: %d entries in %d segments (%d bytes)",
+                directory, index.size(), segments.size(), totalBytes);
+        } catch (IOException | RuntimeException e) {
+            LOG.warnf("Disk cache disabled, cannot open %s: %s", disk.path(), e.getMessage());
+            closeSegments();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                    LOG.warn("Disk cache writes still pending at shutdown are dropped");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writeLock.lock();
+        try {
+            enabled = false;
+            closeSegments();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The latest result stored under the key, or null when absent, older than the
+     * configured maximum age, or unreadable.
+     */
+    public Entry get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - location.writtenAtMillis() > config.disk().maxAge().toMillis()) {
+            index.remove(key, location);
+            return null;
+        }
+        try {
+            ByteBuffer buffer = location.segment().buffer();
+            int keyLength = Short.toUnsignedInt(buffer.getShort(location.offset() + HEADER_BYTES + 24));
+            QueryResult result = SeriesCodec.decode(buffer, location.offset() + HEADER_BYTES + FIXED_BODY_BYTES + keyLength);
+            reads.incrementAndGet();
+            return new Entry(location.startMillis(), location.endMillis(), location.writtenAtMillis(), result);
+        } catch (RuntimeException e) {
+            LOG.debugf("Cannot read disk cache entry %s: %s", key, e.getMessage());
+            index.remove(key, location);
+            return null;
+        }
+    }
+
+    /**
+     * Queue {@link #put} on the background writer. When the writer is behind, the write is dropped.
+     */
+    public void putAsync(String key, long startMillis, long endMillis, QueryResult result) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            writer.execute(() -> put(key, startMillis, endMillis, result));
+        } catch (RejectedExecutionException e) {
+            LOG.debugf("Disk cache closed, not writing %s", key);
+        }
+    }
+
+    /**
+     * Append the result as the latest entry of the key. Failures are logged and otherwise ignored.
+     */
+    public void put(String key, long startMillis, long endMillis, QueryResult result) {
+        if (!enabled) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > 0xFFFF) {
+            return;
+        }
+        byte[] payload = SeriesCodec.encode(result);
+        int bodyLength = FIXED_BODY_BYTES + keyBytes.length + payload.length;
+        int recordLength = HEADER_BYTES + bodyLength;
+        if (recordLength > segmentBytes()) {
+            return;
+        }
+
+        long writtenAt = System.currentTimeMillis();
+        ByteBuffer record = ByteBuffer.allocate(recordLength);
+        record.putInt(MAGIC).putInt(bodyLength).putInt(0);
+        record.putLong(writtenAt).putLong(startMillis).putLong(endMillis)
+            .putShort((short) keyBytes.length).put(keyBytes).put(payload);
+        record.putInt(8, crc(record.array(), HEADER_BYTES, bodyLength));
+        record.flip();
+
+        writeLock.lock();
+        try {
+            if (!enabled) {
+                return;
+            }
+            Segment active = segments.peekLast();
+            if (active.size + recordLength > active.capacity()) {
+                active = roll();
+            }
+            int offset = (int) active.size;
+            active.append(record);
+            totalBytes += recordLength;
+            index.put(key, new Location(active, offset, recordLength, writtenAt, startMillis, endMillis));
+            writes.incrementAndGet();
+            enforceBudget();
+        } catch (IOException e) {
+            LOG.warnf("Cannot write disk cache entry %s: %s", key, e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        writeLock.lock();
+        try {
+            return new Stats(segments.size(), index.size(), totalBytes, reads.get(), writes.get());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // =========================================================================
+    // Segments
+    // =========================================================================
+
+    /**
+     * One append-only segment file, mapped once: sealed segments read-only at their
+     * size, the active segment read-write at the full segment size.
+     */
+    private static final class Segment {
+
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer mapped;
+        private volatile long size;
+
+        private Segment(long id, Path path, FileChannel channel, MappedByteBuffer mapped, long size) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.mapped = mapped;
+            this.size = size;
+        }
+
+        static Segment openSealed(Path path, long id) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = Math.min(channel.size(), Integer.MAX_VALUE);
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, size), size);
+        }
+
+        static Segment create(Path path, long id, long capacity) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Mapping past the end grows the (sparse) file to its final size up front
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity), 0);
+        }
+
+        long capacity() {
+            return mapped.capacity();
+        }
+
+        /**
+         * Copy the record into the mapping. Called with the write lock held.
+         */
+        void append(ByteBuffer record) {
+            int length = record.remaining();
+            mapped.put((int) size, record, record.position(), length);
+            // Publishes the record to readers that see the new size
+            size += length;
+        }
+
+        /**
+         * A read-only view of the records; nothing past the end of the file is reachable through it.
+         */
+        ByteBuffer buffer() {
+            return mapped.asReadOnlyBuffer().limit((int) size);
+        }
+
+        /**
+         * Cut the file to the records it holds; the mapping is kept and only read below size.
+         */
+        void truncate(long length) throws IOException {
+            channel.truncate(length);
+            size = length;
+        }
+
+        void close() {
+            try {
+                if (channel.isOpen() && channel.size() > size) {
+                    channel.truncate(size);
+                }
+                channel.close();
+            } catch (IOException e) {
+                LOG.debugf("Cannot close %s: %s", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Index every valid record of the segment; a torn tail of the last segment is cut off.
+     */
+    private void scan(Segment segment) throws IOException {
+        if (segment.size == 0) {
+            return;
+        }
+        ByteBuffer buffer = segment.buffer();
+        long expired = System.currentTimeMillis() - config.disk().maxAge().toMillis();
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segment.size) {
+            int bodyLength = buffer.getInt(offset + 4);
+            if (buffer.getInt(offset) != MAGIC
+                    || bodyLength < FIXED_BODY_BYTES
+                    || offset + HEADER_BYTES + (long) bodyLength > segment.size
+                    || buffer.getInt(offset + 8) != crc(buffer, offset + HEADER_BYTES, bodyLength)) {
+                break;
+            }
+            int body = offset + HEADER_BYTES;
+            long writtenAt = buffer.getLong(body);
+            int keyLength = Short.toUnsignedInt(buffer.getShort(body + 24));
+            byte[] key = new byte[keyLength];
+            buffer.get(body + FIXED_BODY_BYTES, key);
+            if (writtenAt > expired) {
+                index.put(new String(key, StandardCharsets.UTF_8), new Location(segment, offset,
+                    HEADER_BYTES + bodyLength, writtenAt, buffer.getLong(body + 8), buffer.getLong(body + 16)));
+            }
+            offset += HEADER_BYTES + bodyLength;
+        }
+        if (offset < segment.size) {
+            // Zeros are the unused, preallocated end of a segment that was not closed cleanly
+            if (offset + 4 > segment.size || buffer.getInt(offset) != 0) {
+                LOG.warnf("Disk cache segment %s is damaged after %d bytes", segment.path, offset);
+            }
+            segment.truncate(offset);
+        }
+    }
+
+    /**
+     * Start a new active segment, trimming the previous one to its records. Called with the write lock held.
+     */
+    private Segment roll() throws IOException {
+        Segment previous = segments.peekLast();
+        if (previous != null && previous.capacity() > previous.size) {
+            previous.truncate(previous.size);
+        }
+        long id = previous == null ? 1 : previous.id + 1;
+        Segment segment = Segment.create(Path.of(config.disk().path()).resolve(String.format("%012d%s", id, SUFFIX)),
+            id, segmentBytes());
+        segments.addLast(segment);
+        enforceBudget();
+        return segment;
+    }
+
+    /**
+     * Delete the oldest segments while the total size is over the budget. Called with the write lock held.
+     */
+    private void enforceBudget() throws IOException {
+        while (totalBytes > config.disk().maxBytes() && segments.size() > 1) {
+            Segment oldest = segments.removeFirst();
+            totalBytes -= oldest.size;
+            index.values().removeIf(location -> location.segment() == oldest);
+            oldest.close();
+            Files.deleteIfExists(oldest.path);
+            LOG.debugf("Deleted disk cache segment %s", oldest.path);
+        }
+    }
+
+    private void closeSegments() {
+        List<Segment> open = new ArrayList<>(segments);
+        segments.clear();
+        index.clear();
+        open.forEach(Segment::close);
+    }
+
+    private long segmentBytes() {
+        // A mapped buffer is limited to 2 GiB
+        return Math.min(config.disk().segmentBytes(), Integer.MAX_VALUE);
+    }
+
+    private static long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(offset).limit(offset + length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,288 @@
+package com.monitoring.prometheus.infrastructure.store;
+
+import com.monitoring.prometheus.domain.model.Labels;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.domain.model.Series;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a query result, after the Gorilla paper
+ * (Pelkonen et al., VLDB 2015):
+ *
+ * - label names and values are written once into a dictionary and referenced by index
+ * - timestamps are delta-of-delta encoded, so a regular step costs one bit per sample
+ * - values are XORed with their predecessor and only the meaningful bits are written
+ *
+ * Step-aligned range results take a few bytes per sample instead of the 16 held in memory.
+ */
+public final class SeriesCodec {
+
+    private static final int VERSION = 1;
+
+    private SeriesCodec() {
+    }
+
+    public static byte[] encode(QueryResult result) {
+        BitOutput out = new BitOutput((int) Math.min(Integer.MAX_VALUE / 2, 64 + result.sampleCount() * 2));
+        out.writeBits(VERSION, 8);
+        writeString(out, result.resultType());
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Series series : result.series()) {
+            Labels labels = series.labels();
+            for (int i = 0; i < labels.size(); i++) {
+                dictionary.putIfAbsent(labels.name(i), dictionary.size());
+                dictionary.putIfAbsent(labels.value(i), dictionary.size());
+            }
+        }
+        writeVarint(out, dictionary.size());
+        for (String s : dictionary.keySet()) {
+            writeString(out, s);
+        }
+
+        writeVarint(out, result.series().size());
+        for (Series series : result.series()) {
+            Labels labels = series.labels();
+            writeVarint(out, labels.size());
+            for (int i = 0; i < labels.size(); i++) {
+                writeVarint(out, dictionary.get(labels.name(i)));
+                writeVarint(out, dictionary.get(labels.value(i)));
+            }
+            writeVarint(out, series.size());
+            writeTimestamps(out, series.timestamps(), series.size());
+            writeValues(out, series.values(), series.size());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a result encoded by {@link #encode} starting at offset of the buffer.
+     *
+     * @throws IllegalStateException if the data was written by an unknown version
+     */
+    public static QueryResult decode(ByteBuffer buffer, int offset) {
+        BitInput in = new BitInput(buffer, offset);
+        int version = (int) in.readBits(8);
+        if (version != VERSION) {
+            throw new IllegalStateException("Unknown encoding version " + version);
+        }
+        String resultType = readString(in);
+
+        String[] dictionary = new String[readVarint(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+
+        int seriesCount = readVarint(in);
+        List<Series> series = new ArrayList<>(seriesCount);
+        for (int s = 0; s < seriesCount; s++) {
+            int labelCount = readVarint(in);
+            Map<String, String> labels = new LinkedHashMap<>(labelCount * 2);
+            for (int i = 0; i < labelCount; i++) {
+                String name = dictionary[readVarint(in)];
+                labels.put(name, dictionary[readVarint(in)]);
+            }
+            int size = readVarint(in);
+            long[] timestamps = readTimestamps(in, size);
+            double[] values = readValues(in, size);
+            series.add(new Series(Labels.of(labels), timestamps, values));
+        }
+        return new QueryResult(resultType, series);
+    }
+
+    // =========================================================================
+    // Timestamps: delta-of-delta
+    // =========================================================================
+
+    private static void writeTimestamps(BitOutput out, long[] timestamps, int size) {
+        if (size == 0) {
+            return;
+        }
+        out.writeBits(timestamps[0], 64);
+        if (size == 1) {
+            return;
+        }
+        long previousDelta = timestamps[1] - timestamps[0];
+        writeVarint(out, zigzag(previousDelta));
+        for (int i = 2; i < size; i++) {
+            long delta = timestamps[i] - timestamps[i - 1];
+            long dod = delta - previousDelta;
+            previousDelta = delta;
+            if (dod == 0) {
+                out.writeBit(false);
+            } else if (dod >= -64 && dod <= 63) {
+                out.writeBits(0b10, 2);
+                out.writeBits(dod, 7);
+            } else if (dod >= -256 && dod <= 255) {
+                out.writeBits(0b110, 3);
+                out.writeBits(dod, 9);
+            } else if (dod >= -2048 && dod <= 2047) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(dod, 12);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(dod, 64);
+            }
+        }
+    }
+
+    private static long[] readTimestamps(BitInput in, int size) {
+        long[] timestamps = new long[size];
+        if (size == 0) {
+            return timestamps;
+        }
+        timestamps[0] = in.readBits(64);
+        if (size == 1) {
+            return timestamps;
+        }
+        long delta = unzigzag(readVarlong(in));
+        timestamps[1] = timestamps[0] + delta;
+        for (int i = 2; i < size; i++) {
+            long dod;
+            if (!in.readBit()) {
+                dod = 0;
+            } else if (!in.readBit()) {
+                dod = signExtend(in.readBits(7), 7);
+            } else if (!in.readBit()) {
+                dod = signExtend(in.readBits(9), 9);
+            } else if (!in.readBit()) {
+                dod = signExtend(in.readBits(12), 12);
+            } else {
+                dod = in.readBits(64);
+            }
+            delta += dod;
+            timestamps[i] = timestamps[i - 1] + delta;
+        }
+        return timestamps;
+    }
+
+    // =========================================================================
+    // Values: XOR with the previous value
+    // =========================================================================
+
+    private static void writeValues(BitOutput out, double[] values, int size) {
+        if (size == 0) {
+            return;
+        }
+        long previous = Double.doubleToRawLongBits(values[0]);
+        out.writeBits(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < size; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                out.writeBit(false);
+                continue;
+            }
+            out.writeBit(true);
+            int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // Meaningful bits fit in the previous window
+                out.writeBit(false);
+                out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                // 64 meaningful bits do not fit in 6 bits and are written as 0
+                out.writeBits(meaningful & 0x3F, 6);
+                out.writeBits(xor >>> trailing, meaningful);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+
+    private static double[] readValues(BitInput in, int size) {
+        double[] values = new double[size];
+        if (size == 0) {
+            return values;
+        }
+        long previous = in.readBits(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < size; i++) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int meaningful = (int) in.readBits(6);
+                    if (meaningful == 0) {
+                        meaningful = 64;
+                    }
+                    trailing = 64 - leading - meaningful;
+                }
+                long xor = in.readBits(64 - leading - trailing) << trailing;
+                previous ^= xor;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+        return values;
+    }
+
+    // =========================================================================
+    // Private Helper Methods
+    // =========================================================================
+
+    private static void writeString(BitOutput out, String s) {
+        byte[] bytes = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        for (byte b : bytes) {
+            out.writeBits(b, 8);
+        }
+    }
+
+    private static String readString(BitInput in) {
+        byte[] bytes = new byte[readVarint(in)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) in.readBits(8);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarint(BitOutput out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeBits((value & 0x7F) | 0x80, 8);
+            value >>>= 7;
+        }
+        out.writeBits(value, 8);
+    }
+
+    private static int readVarint(BitInput in) {
+        return Math.toIntExact(readVarlong(in));
+    }
+
+    private static long readVarlong(BitInput in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            long b = in.readBits(8);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long signExtend(long value, int bits) {
+        int shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+}
@@ -1,11 +1,15 @@
 package com.monitoring.prometheus.mcp;
 
 import com.monitoring.prometheus.application.service.PrometheusService;
+import io.quarkiverse.mcp.server.McpConnection;
 import io.quarkiverse.mcp.server.Tool;
 import io.quarkiverse.mcp.server.ToolArg;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import java.util.List;
+
 /**
  * MCP Tools for Prometheus monitoring and observability.
  *
@@ -13,12 +17,19 @@ import jakarta.inject.Inject;
  * and monitor infrastructure health. Use it to check resource usage,
  * investigate issues, analyze trends, and understand alerting rules.
  *
- * Provides 5 tools in 4 categories:
- * - Queries: query, queryRange
+ * Provides 11 tools in 6 categories:
+ * - Queries: query, queryRange, queryBatch, analyzeRange
+ * - Metadata: searchMetrics, searchLabels, searchLabelValues
  * - Targets: getTargets
  * - Rules: getRules
+ * - Changes: getChanges
  * - Status: getPrometheusStatus
+ *
+ * Every tool blocks on a Prometheus round-trip, so tools run on virtual threads
+ * and concurrent SSE sessions do not exhaust the worker pool. Each call is
+ * traced and timed by {@link ToolTelemetryInterceptor}.
  */
+@Instrumented
 @ApplicationScoped
 public class PrometheusTools {
 
@@ -29,6 +40,7 @@ public class PrometheusTools {
     // Query Tools
     // =========================================================================
 
+    @RunOnVirtualThread
     @Tool(description = "Execute a PromQL instant query to get current metric values. "
             + "Use this to: check current CPU/memory usage, count running pods, verify service health, "
             + "get latest values for any metric. "
@@ -37,41 +49,134 @@ public class PrometheusTools {
             + "Returns point-in-time values.")
     public String query(
         @ToolArg(description = "PromQL query expression. Examples: 'up', 'node_cpu_seconds_total', "
-                + "'rate(http_requests_total{job=\"api\"}[5m])', 'sum by (namespace) (kube_pod_info)'") String promql
+                + "'rate(http_requests_total{job=\"api\"}[5m])', 'sum by (namespace) (kube_pod_info)'") String promql,
+        @ToolArg(description = "Maximum number of series to return, highest values first. Default: 50", required = false) Integer maxSeries,
+        @ToolArg(description = "Output format: 'text' (readable), 'csv'/'tsv' (label table + sample rows, most compact), "
+                + "'json' (compact Prometheus-style JSON). Default: text", required = false) String format,
+        @ToolArg(description = "Prometheus backends to query and merge, adding a 'cluster' label: 'all', names like 'prod,staging', "
+                + "or backend labels like 'env=prod'. Default: the primary Prometheus only", required = false) String backend
     ) {
-        return prometheusService.query(promql);
+        return prometheusService.query(promql, maxSeries, format, backend);
     }
 
+    @RunOnVirtualThread
     @Tool(description = "Execute a PromQL range query to get metric values over time. "
             + "Use this to: analyze trends, see historical data, investigate when issues started, "
             + "compare performance over time, prepare data for graphing. "
-            + "Returns a time series of values at regular intervals over the specified duration.")
+            + "Returns per-series min/max/avg and a downsampled view of the values over the specified duration.")
     public String queryRange(
         @ToolArg(description = "PromQL query expression. Same syntax as instant query.") String promql,
         @ToolArg(description = "How far back to query: '15m' (15 min), '1h' (1 hour), '6h', '24h', '7d' (7 days)") String duration,
-        @ToolArg(description = "Resolution/granularity: '1m' (1 min), '5m', '15m', '1h'. Smaller = more data points. Default: 1m") String step
+        @ToolArg(description = "Resolution/granularity: '1m' (1 min), '5m', '15m', '1h'. Smaller = more data points. Default: 1m") String step,
+        @ToolArg(description = "Maximum number of series to return, most variable first. Default: 50", required = false) Integer maxSeries,
+        @ToolArg(description = "Points shown per series, downsampled to keep spikes and dips. Default: 20", required = false) Integer maxPoints,
+        @ToolArg(description = "Output format: 'text' (readable), 'csv'/'tsv' (label table + sample rows, most compact), "
+                + "'json' (compact Prometheus-style JSON). Default: text", required = false) String format,
+        @ToolArg(description = "Prometheus backends to query and merge, adding a 'cluster' label: 'all', names like 'prod,staging', "
+                + "or backend labels like 'env=prod'. Default: the primary Prometheus only", required = false) String backend
+    ) {
+        return prometheusService.queryRange(promql, duration, step, maxSeries, maxPoints, format, backend);
+    }
+
+    @RunOnVirtualThread
+    @Tool(description = "Find when and where a metric changed: runs a range query and reports only the series "
+            + "with level shifts (change points) or spikes, most severe first, with their timestamps and "
+            + "mean/stddev/p50/p95/slope. Quiet series are only counted. "
+            + "Use this to: find when an issue started, spot which pods or instances misbehave, "
+            + "investigate incidents without reading every sample. Use rate() for counters.")
+    public String analyzeRange(
+        @ToolArg(description = "PromQL query expression, e.g. 'sum by (pod) (rate(container_cpu_usage_seconds_total[5m]))'") String promql,
+        @ToolArg(description = "How far back to analyze: '1h', '6h', '24h', '7d'") String duration,
+        @ToolArg(description = "Resolution: '1m', '5m'. Default: 1m", required = false) String step,
+        @ToolArg(description = "Maximum number of anomalous series to show. Default: 10", required = false) Integer maxSeries,
+        @ToolArg(description = "Prometheus backends to query and merge, adding a 'cluster' label: 'all', names like 'prod,staging', "
+                + "or backend labels like 'env=prod'. Default: the primary Prometheus only", required = false) String backend
+    ) {
+        return prometheusService.analyzeRange(promql, duration, step, maxSeries, backend);
+    }
+
+    @RunOnVirtualThread
+    @Tool(description = "Execute several PromQL queries in one call, concurrently and at the same point in time. "
+            + "Use this instead of many separate query calls when checking several signals at once, e.g. during an incident: "
+            + "CPU, memory, restarts, error rate and latency together. "
+            + "Runs instant queries, or range queries when a duration is given. "
+            + "Returns one section per query; a failing query reports its error without affecting the others.")
+    public String queryBatch(
+        @ToolArg(description = "PromQL expressions to execute, e.g. ['sum(rate(container_cpu_usage_seconds_total[5m]))', "
+                + "'sum(kube_pod_container_status_restarts_total)']. At most 20") List<String> queries,
+        @ToolArg(description = "Run range queries this far back: '15m', '1h', '24h'. Default: instant queries", required = false) String duration,
+        @ToolArg(description = "Resolution of range queries: '1m', '5m'. Default: 1m", required = false) String step,
+        @ToolArg(description = "Maximum number of series per query. Default: 50", required = false) Integer maxSeries,
+        @ToolArg(description = "Points shown per series of range queries. Default: 20", required = false) Integer maxPoints,
+        @ToolArg(description = "Output format: 'text' (readable), 'csv'/'tsv' (label table + sample rows, most compact), "
+                + "'json' (compact Prometheus-style JSON). Default: text", required = false) String format,
+        @ToolArg(description = "Prometheus backends to query and merge, adding a 'cluster' label: 'all', names like 'prod,staging', "
+                + "or backend labels like 'env=prod'. Default: the primary Prometheus only", required = false) String backend
+    ) {
+        return prometheusService.queryBatch(queries, duration, step, maxSeries, maxPoints, format, backend);
+    }
+
+    // =========================================================================
+    // Metadata Tools
+    // =========================================================================
+
+    @RunOnVirtualThread
+    @Tool(description = "Find metric names before writing a query. Matches by prefix first, "
+            + "then fuzzy (substring or abbreviation, e.g. 'memavail' finds 'node_memory_MemAvailable_bytes'). "
+            + "Use this to: discover which metrics exist, check exact metric spelling, avoid failing queries. "
+            + "Answered from a local index, so it is cheap to call repeatedly.")
+    public String searchMetrics(
+        @ToolArg(description = "Prefix or fragment of the metric name, e.g. 'node_cpu', 'http_requests', 'restarts'") String search,
+        @ToolArg(description = "Maximum number of names to return. Default: 50", required = false) Integer limit
+    ) {
+        return prometheusService.searchMetrics(search, limit);
+    }
+
+    @RunOnVirtualThread
+    @Tool(description = "Find label names available for filtering and grouping (e.g. namespace, pod, job, instance). "
+            + "Matches by prefix first, then fuzzy. Answered from a local index.")
+    public String searchLabels(
+        @ToolArg(description = "Prefix or fragment of the label name. Empty lists all labels", required = false) String search,
+        @ToolArg(description = "Maximum number of names to return. Default: 50", required = false) Integer limit
+    ) {
+        return prometheusService.searchLabels(search, limit);
+    }
+
+    @RunOnVirtualThread
+    @Tool(description = "Find the values of a label, e.g. existing namespaces, jobs or pod names, "
+            + "to build exact label matchers. Matches by prefix first, then fuzzy.")
+    public String searchLabelValues(
+        @ToolArg(description = "Label name, e.g. 'namespace', 'job', 'pod'") String label,
+        @ToolArg(description = "Prefix or fragment of the value. Empty lists all values", required = false) String search,
+        @ToolArg(description = "Maximum number of values to return. Default: 50", required = false) Integer limit
     ) {
-        return prometheusService.queryRange(promql, duration, step);
+        return prometheusService.searchLabelValues(label, search, limit);
     }
 
     // =========================================================================
     // Target Tools
     // =========================================================================
 
+    @RunOnVirtualThread
     @Tool(description = "Get Prometheus scrape target status. Shows all endpoints Prometheus is collecting metrics from, "
             + "their health status (up/down), last scrape time, and any errors. "
             + "Use this to: verify services are being monitored, diagnose collection issues, "
-            + "find targets with scrape errors, check service discovery results.")
+            + "find targets with scrape errors, check service discovery results. "
+            + "Unhealthy targets are listed first; dropped targets are only counted.")
     public String getTargets(
-        @ToolArg(description = "Filter targets: 'active' (currently being scraped), 'dropped' (removed by relabeling), 'any' (all). Default: any") String state
+        @ToolArg(description = "Filter targets: 'active' (currently being scraped), 'dropped' (removed by relabeling), 'any' (all). Default: any") String state,
+        @ToolArg(description = "Only targets of this scrape pool (job), e.g. 'kubernetes-pods'", required = false) String scrapePool,
+        @ToolArg(description = "Only targets with this health: 'up', 'down' or 'unknown'", required = false) String health,
+        @ToolArg(description = "Comma-separated label matchers, e.g. 'namespace=prod,instance=~node-1.*'", required = false) String labels
     ) {
-        return prometheusService.getTargets(state);
+        return prometheusService.getTargets(state, scrapePool, health, labels);
     }
 
     // =========================================================================
     // Rules Tools
     // =========================================================================
 
+    @RunOnVirtualThread
     @Tool(description = "Get Prometheus alerting and recording rules. "
             + "Alerting rules define conditions that trigger alerts (sent to Alertmanager). "
             + "Recording rules pre-compute expensive queries for faster dashboards. "
@@ -86,18 +191,30 @@ public class PrometheusTools {
             return prometheusService.getRecordingRules();
         }
         // Default: return both
-        StringBuilder sb = new StringBuilder();
-        sb.append("=== Alerting Rules ===\n");
-        sb.append(prometheusService.getAlertingRules()).append("\n");
-        sb.append("=== Recording Rules ===\n");
-        sb.append(prometheusService.getRecordingRules());
-        return sb.toString();
+        return prometheusService.getAllRules();
+    }
+
+    // =========================================================================
+    // Change Tools
+    // =========================================================================
+
+    @RunOnVirtualThread
+    @Tool(description = "List what changed recently: scrape targets that went up/down, appeared or disappeared, "
+            + "and rules that changed state (inactive/pending/firing) or health. "
+            + "Use this to: answer 'what changed since last check', spot new failures during an incident, "
+            + "confirm a fix took effect. Cheap: answered from a background-polled snapshot.")
+    public String getChanges(
+        @ToolArg(description = "How far back to look: '5m', '1h', '24h'. Omit to list changes since the previous getChanges call of this session", required = false) String since,
+        McpConnection connection
+    ) {
+        return prometheusService.getChanges(since, connection.id());
     }
 
     // =========================================================================
     // Status Tools
     // =========================================================================
 
+    @RunOnVirtualThread
     @Tool(description = "Get Prometheus server status and build information. "
             + "Shows version, build date, Go version, and runtime configuration. "
             + "Use this to: verify Prometheus is running, check version for compatibility, "
@@ -0,0 +1,87 @@
+package com.monitoring.prometheus.mcp;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps every tool call in a span and records mcp.tool.duration and
+ * mcp.tool.response.chars, tagged with the tool name and outcome. Answer sizes
+ * are counted in characters, the unit of the client's context, not in bytes.
+ *
+ * Tools report failures as text, so the outcome is derived from the answer:
+ * error for "Error:"/"Query failed:"/"Failed", rejected for "Query rejected:".
+ */
+@Instrumented
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class ToolTelemetryInterceptor {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Tracer tracer;
+
+    @AroundInvoke
+    Object record(InvocationContext context) throws Exception {
+        String tool = context.getMethod().getName();
+        Span span = tracer.spanBuilder("tool " + tool).setAttribute("mcp.tool", tool).startSpan();
+        long startNanos = System.nanoTime();
+        String outcome = "error";
+        try (Scope ignored = span.makeCurrent()) {
+            Object result = context.proceed();
+            if (result instanceof String text) {
+                outcome = outcome(text);
+                DistributionSummary.builder("mcp.tool.response.chars")
+                    .description("Size of tool answers in characters")
+                    .baseUnit("characters")
+                    .tag("tool", tool)
+                    .register(registry)
+                    .record(text.length());
+                span.setAttribute("mcp.response.chars", text.length());
+            } else {
+                outcome = "success";
+            }
+            if (!"success".equals(outcome)) {
+                span.setStatus(StatusCode.ERROR, outcome);
+            }
+            return result;
+        } catch (Exception e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR, e.getMessage());
+            throw e;
+        } finally {
+            span.setAttribute("mcp.outcome", outcome);
+            span.end();
+            Timer.builder("mcp.tool.duration")
+                .description("Latency of MCP tool calls")
+                .tag("tool", tool)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String outcome(String answer) {
+        if (answer.startsWith("Query rejected:")) {
+            return "rejected";
+        }
+        if (answer.startsWith("Error:") || answer.startsWith("Query failed:") || answer.startsWith("Failed")) {
+            return "error";
+        }
+        return "success";
+    }
+}
@@ -0,0 +1,126 @@
+package com.monitoring.prometheus.application.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeriesAnalyzerTest {
+
+    // Defaults of prometheus.query.analysis.change-threshold and spike-threshold
+    private static final double CHANGE_THRESHOLD = 5;
+    private static final double SPIKE_THRESHOLD = 4;
+    private static final long START = 1_700_000_000_000L;
+    private static final long STEP = 60_000L;
+
+    @Test
+    void detectsLevelShift() {
+        Random random = new Random(7);
+        SeriesAnalyzer analyzer = new SeriesAnalyzer(CHANGE_THRESHOLD, SPIKE_THRESHOLD);
+        for (int i = 0; i < 300; i++) {
+            double level = i < 150 ? 100 : 110;
+            analyzer.add(START + i * STEP, level + random.nextGaussian());
+        }
+
+        SeriesAnalyzer.Analysis analysis = analyzer.result();
+        assertEquals(1, analysis.changePoints().size());
+        SeriesAnalyzer.ChangePoint shift = analysis.changePoints().get(0);
+        assertEquals(START + 150 * STEP, shift.timestampMillis(), 2 * STEP, "shift start");
+        assertEquals(100, shift.before(), 0.5);
+        assertEquals(110, shift.after(), 0.5);
+        assertTrue(shift.magnitude() > 5, "magnitude " + shift.magnitude());
+        assertTrue(analysis.spikes().isEmpty(), "spikes " + analysis.spikes());
+    }
+
+    @Test
+    void ignoresNoiseWithoutShift() {
+        Random random = new Random(11);
+        SeriesAnalyzer analyzer = new SeriesAnalyzer(CHANGE_THRESHOLD, SPIKE_THRESHOLD);
+        for (int i = 0; i < 1_000; i++) {
+            analyzer.add(START + i * STEP, 50 + random.nextGaussian());
+        }
+
+        assertFalse(analyzer.result().isAnomalous(), "anomalies " + analyzer.result());
+    }
+
+    @Test
+    void detectsIsolatedSpike() {
+        Random random = new Random(3);
+        SeriesAnalyzer analyzer = new SeriesAnalyzer(CHANGE_THRESHOLD, SPIKE_THRESHOLD);
+        // Bounded noise, so no sample but the spike is more than a few deviations off
+        for (int i = 0; i < 200; i++) {
+            analyzer.add(START + i * STEP, i == 120 ? 80 : 50 + random.nextDouble() * 2 - 1);
+        }
+
+        SeriesAnalyzer.Analysis analysis = analyzer.result();
+        assertTrue(analysis.changePoints().isEmpty(), "change points " + analysis.changePoints());
+        assertEquals(1, analysis.spikes().size());
+        SeriesAnalyzer.Spike spike = analysis.spikes().get(0);
+        assertEquals(START + 120 * STEP, spike.timestampMillis());
+        assertEquals(80.0, spike.value(), 0);
+        assertTrue(spike.zScore() > SPIKE_THRESHOLD, "z " + spike.zScore());
+    }
+
+    @Test
+    void skipsNonFiniteSamples() {
+        Random random = new Random(5);
+        SeriesAnalyzer analyzer = new SeriesAnalyzer(CHANGE_THRESHOLD, SPIKE_THRESHOLD);
+        for (int i = 0; i < 300; i++) {
+            double value = switch (i) {
+                case 40 -> Double.POSITIVE_INFINITY;
+                case 41 -> Double.NEGATIVE_INFINITY;
+                case 42 -> Double.NaN;
+                default -> (i < 150 ? 100 : 110) + random.nextGaussian();
+            };
+            analyzer.add(START + i * STEP, value);
+        }
+
+        SeriesAnalyzer.Analysis analysis = analyzer.result();
+        assertEquals(297, analysis.count());
+        assertTrue(Double.isFinite(analysis.mean()), "mean " + analysis.mean());
+        assertTrue(Double.isFinite(analysis.max()), "max " + analysis.max());
+        assertTrue(Double.isFinite(analysis.p95()), "p95 " + analysis.p95());
+        // Detection still works after the infinite samples
+        assertEquals(1, analysis.changePoints().size());
+        assertEquals(START + 150 * STEP, analysis.changePoints().get(0).timestampMillis(), 2 * STEP, "shift start");
+    }
+
+    @Test
+    void digestQuantilesOfUniformDistribution() {
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            values.add((double) i);
+        }
+        Collections.shuffle(values, new Random(1));
+        TDigest digest = new TDigest(100);
+        values.forEach(digest::add);
+
+        assertEquals(5_000, digest.quantile(0.5), 50);
+        assertEquals(9_500, digest.quantile(0.95), 20);
+        assertEquals(9_900, digest.quantile(0.99), 10);
+        assertEquals(0, digest.quantile(0), 0);
+        assertEquals(9_999, digest.quantile(1), 0);
+    }
+
+    @Test
+    void analysisQuantilesOfNormalDistribution() {
+        Random random = new Random(9);
+        SeriesAnalyzer analyzer = new SeriesAnalyzer(CHANGE_THRESHOLD, SPIKE_THRESHOLD);
+        for (int i = 0; i < 20_000; i++) {
+            analyzer.add(START + i * STEP, 200 + 10 * random.nextGaussian());
+        }
+
+        SeriesAnalyzer.Analysis analysis = analyzer.result();
+        assertEquals(200, analysis.p50(), 0.5);
+        // 95th percentile of N(200, 10) is 200 + 1.645 * 10
+        assertEquals(216.45, analysis.p95(), 0.5);
+        assertEquals(200, analysis.mean(), 0.5);
+        assertEquals(10, analysis.stddev(), 0.3);
+    }
+}
@@ -0,0 +1,102 @@
+package com.monitoring.prometheus.infrastructure.store;
+
+import com.monitoring.prometheus.domain.model.Labels;
+import com.monitoring.prometheus.domain.model.QueryResult;
+import com.monitoring.prometheus.domain.model.Series;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SeriesCodecTest {
+
+    private static final Labels LABELS = Labels.of(Map.of("__name__", "up", "job", "node", "instance", "a:9100"));
+
+    @Test
+    void roundTripsRegularSteps() {
+        long[] timestamps = new long[500];
+        double[] values = new double[500];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 60_000L;
+            values[i] = 100 + i * 0.25;
+        }
+        assertRoundTrip(matrix(new Series(LABELS, timestamps, values)));
+    }
+
+    @Test
+    void roundTripsSpecialValues() {
+        long[] timestamps = {1_000L, 2_000L, 3_000L, 4_000L, 5_000L, 6_000L, 7_000L};
+        double[] values = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.0, -0.0,
+            Double.MIN_VALUE, Double.MAX_VALUE};
+        assertRoundTrip(matrix(new Series(LABELS, timestamps, values)));
+    }
+
+    @Test
+    void roundTripsIrregularTimestamps() {
+        Random random = new Random(42);
+        long[] timestamps = new long[1_000];
+        double[] values = new double[1_000];
+        long t = 1_700_000_000_000L;
+        for (int i = 0; i < timestamps.length; i++) {
+            // Jitter, gaps of hours and the occasional huge jump exercise every delta-of-delta width
+            t += switch (i % 4) {
+                case 0 -> 15_000L + random.nextInt(200);
+                case 1 -> 1 + random.nextInt(3);
+                case 2 -> 3_600_000L * (1 + random.nextInt(5));
+                default -> i % 40 == 3 ? 86_400_000L * 365 : 15_000L;
+            };
+            timestamps[i] = t;
+            values[i] = random.nextGaussian() * 1e6;
+        }
+        assertRoundTrip(matrix(new Series(LABELS, timestamps, values)));
+    }
+
+    @Test
+    void roundTripsEmptyAndSingleSampleSeries() {
+        Series empty = new Series(LABELS, new long[0], new double[0]);
+        Series single = new Series(Labels.of(Map.of("job", "api")), new long[] {42L}, new double[] {Double.NaN});
+        Series unlabeled = new Series(Labels.EMPTY, new long[] {1L, 2L}, new double[] {1.5, 1.5});
+        assertRoundTrip(matrix(empty, single, unlabeled));
+        assertRoundTrip(new QueryResult("matrix", List.of()));
+    }
+
+    @Test
+    void decodesAtAnOffset() {
+        QueryResult result = matrix(new Series(LABELS, new long[] {1L, 2L, 3L}, new double[] {1, 2, 3}));
+        byte[] encoded = SeriesCodec.encode(result);
+        ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 13);
+        buffer.position(13);
+        buffer.put(encoded);
+        assertSame(result, SeriesCodec.decode(buffer, 13));
+    }
+
+    private static QueryResult matrix(Series... series) {
+        return new QueryResult("matrix", List.of(series));
+    }
+
+    private static void assertRoundTrip(QueryResult result) {
+        byte[] encoded = SeriesCodec.encode(result);
+        assertSame(result, SeriesCodec.decode(ByteBuffer.wrap(encoded), 0));
+    }
+
+    private static void assertSame(QueryResult expected, QueryResult actual) {
+        assertEquals(expected.resultType(), actual.resultType());
+        assertEquals(expected.series().size(), actual.series().size());
+        for (int s = 0; s < expected.series().size(); s++) {
+            Series want = expected.series().get(s);
+            Series got = actual.series().get(s);
+            assertEquals(want.labels(), got.labels());
+            assertEquals(want.size(), got.size());
+            for (int i = 0; i < want.size(); i++) {
+                assertEquals(want.timestampAt(i), got.timestampAt(i), "timestamp " + i);
+                // Bit-exact, so NaN and -0.0 survive as well
+                assertEquals(Double.doubleToRawLongBits(want.valueAt(i)), Double.doubleToRawLongBits(got.valueAt(i)),
+                    "value " + i);
+            }
+        }
+    }
+}